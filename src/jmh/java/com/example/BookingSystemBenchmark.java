@@ -0,0 +1,133 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookingSystem} mot ett repository i minnet när antalet rum och
+ * bokningar per rum växer. Varje rum har en timslång bokning varannan timme,
+ * så frågorna träffar både lediga och upptagna tider. Bokning och avbokning
+ * mäts som ett par så att kalendern har samma storlek under hela mätningen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingSystemBenchmark {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0);
+    private static final LocalDateTime FIRST_BOOKING = NOW.plusDays(1);
+    private static final int QUERIES = 1_024;
+
+    @Param({"10", "1000"})
+    int roomCount;
+
+    @Param({"10", "1000"})
+    int bookingsPerRoom;
+
+    @Param({"false", "true"})
+    boolean occupancyIndex;
+
+    private BookingSystem bookingSystem;
+    private final CapturingNotificationService notifications = new CapturingNotificationService();
+    private String[] roomIds;
+    private LocalDateTime[] freeStarts;
+    private LocalDateTime[] bookedStarts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        InMemoryRepository repository = new InMemoryRepository();
+        for (int r = 0; r < roomCount; r++) {
+            Room room = new Room("room" + r, "Konferensrum");
+            for (int b = 0; b < bookingsPerRoom; b++) {
+                LocalDateTime start = FIRST_BOOKING.plusHours(2L * b);
+                room.addBooking(new Booking("room" + r + "-" + b, room.getId(), start, start.plusHours(1)));
+            }
+            repository.save(room);
+        }
+        OccupancyIndex index = occupancyIndex ? new OccupancyIndex(repository) : null;
+        bookingSystem = new BookingSystem(() -> NOW, repository, notifications, index);
+
+        Random random = new Random(42);
+        roomIds = new String[QUERIES];
+        freeStarts = new LocalDateTime[QUERIES];
+        bookedStarts = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            roomIds[i] = "room" + random.nextInt(roomCount);
+            LocalDateTime slot = FIRST_BOOKING.plusHours(2L * random.nextInt(bookingsPerRoom));
+            bookedStarts[i] = slot.plusMinutes(10);
+            freeStarts[i] = slot.plusMinutes(70);
+        }
+    }
+
+    @Benchmark
+    public boolean bookAndCancel() {
+        int i = next++ & (QUERIES - 1);
+        bookingSystem.bookRoom(roomIds[i], freeStarts[i], freeStarts[i].plusMinutes(30));
+        return bookingSystem.cancelBooking(notifications.lastBooked.getId());
+    }
+
+    @Benchmark
+    public boolean bookRoomRejected() {
+        int i = next++ & (QUERIES - 1);
+        return bookingSystem.bookRoom(roomIds[i], bookedStarts[i], bookedStarts[i].plusMinutes(30));
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms() {
+        int i = next++ & (QUERIES - 1);
+        return bookingSystem.getAvailableRooms(freeStarts[i], freeStarts[i].plusMinutes(30));
+    }
+
+    private static final class CapturingNotificationService implements NotificationService {
+        Booking lastBooked;
+
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+            lastBooked = booking;
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    }
+
+    private static final class InMemoryRepository implements RoomRepository {
+        private final Map<String, Room> rooms = new HashMap<>();
+
+        @Override
+        public Optional<Room> findById(String id) {
+            return Optional.ofNullable(rooms.get(id));
+        }
+
+        @Override
+        public List<Room> findAll() {
+            return new ArrayList<>(rooms.values());
+        }
+
+        @Override
+        public void save(Room room) {
+            rooms.put(room.getId(), room);
+        }
+    }
+}
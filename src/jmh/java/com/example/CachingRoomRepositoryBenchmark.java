@@ -0,0 +1,140 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link BookingSystem} mot ett långsamt repository i minnet, där varje anrop
+ * tar {@code latencyMicros}, med och utan {@link CachingRoomRepository}
+ * framför. Bokning och avbokning mäts som ett par så att kalendern har samma
+ * storlek under hela mätningen. Väntande skrivningar skrivs efter varje
+ * iteration, så att de inte växer mellan mätningarna.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingRoomRepositoryBenchmark {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0);
+    private static final LocalDateTime FIRST_BOOKING = NOW.plusDays(1);
+    private static final int QUERIES = 1_024;
+
+    public enum Caching { NONE, READ_THROUGH, WRITE_BEHIND }
+
+    @Param({"100"})
+    int roomCount;
+
+    @Param({"50"})
+    long latencyMicros;
+
+    @Param({"NONE", "READ_THROUGH", "WRITE_BEHIND"})
+    Caching caching;
+
+    private BookingSystem bookingSystem;
+    private CachingRoomRepository cachingRepository;
+    private final CapturingNotificationService notifications = new CapturingNotificationService();
+    private String[] roomIds;
+    private LocalDateTime[] starts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SlowRepository slowRepository = new SlowRepository(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        for (int r = 0; r < roomCount; r++) {
+            slowRepository.rooms.put("room" + r, new Room("room" + r, "Konferensrum"));
+        }
+        RoomRepository repository = slowRepository;
+        if (caching != Caching.NONE) {
+            cachingRepository = new CachingRoomRepository(slowRepository, roomCount,
+                    caching == Caching.WRITE_BEHIND, roomCount);
+            repository = cachingRepository;
+        }
+        bookingSystem = new BookingSystem(() -> NOW, repository, notifications);
+
+        Random random = new Random(42);
+        roomIds = new String[QUERIES];
+        starts = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            roomIds[i] = "room" + random.nextInt(roomCount);
+            starts[i] = FIRST_BOOKING.plusHours(random.nextInt(1_000));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        if (cachingRepository != null) {
+            cachingRepository.flush();
+        }
+    }
+
+    @Benchmark
+    public boolean bookAndCancel() {
+        int i = next++ & (QUERIES - 1);
+        bookingSystem.bookRoom(roomIds[i], starts[i], starts[i].plusMinutes(30));
+        return bookingSystem.cancelBooking(notifications.lastBooked.getId());
+    }
+
+    // Fejkat lagringslager där varje anrop motsvarar en rundresa över nätet
+    private static final class SlowRepository implements RoomRepository {
+        private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+        private final long latencyNanos;
+
+        SlowRepository(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public Optional<Room> findById(String id) {
+            LockSupport.parkNanos(latencyNanos);
+            return Optional.ofNullable(rooms.get(id));
+        }
+
+        @Override
+        public List<Room> findAll() {
+            LockSupport.parkNanos(latencyNanos);
+            return new ArrayList<>(rooms.values());
+        }
+
+        @Override
+        public void save(Room room) {
+            LockSupport.parkNanos(latencyNanos);
+            rooms.put(room.getId(), room);
+        }
+    }
+
+    private static final class CapturingNotificationService implements NotificationService {
+        Booking lastBooked;
+
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+            lastBooked = booking;
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    }
+}
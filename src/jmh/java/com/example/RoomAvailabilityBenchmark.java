@@ -0,0 +1,81 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jämför {@link Room#isAvailable} med den tidigare lösningen: en ström över
+ * alla bokningar som jämför {@code LocalDateTime} fält för fält. Kör med
+ * {@code -prof gc} för att se att rummets kontroll inte allokerar per anrop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomAvailabilityBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 8, 0);
+    private static final int QUERIES = 1_024;
+
+    @Param({"100", "10000"})
+    int bookingCount;
+
+    @Param({"TREE", "COMPACT"})
+    BookingStorage storage;
+
+    private Room room;
+    private List<Booking> bookings;
+    private LocalDateTime[] starts;
+    private LocalDateTime[] ends;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        room = new Room("room1", "Konferensrum", storage);
+        bookings = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime start = BASE.plusHours(2L * i);
+            Booking booking = new Booking("b" + i, "room1", start, start.plusMinutes(30 + random.nextInt(60)));
+            room.addBooking(booking);
+            bookings.add(booking);
+        }
+        starts = new LocalDateTime[QUERIES];
+        ends = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = BASE.plusMinutes(random.nextInt(bookingCount * 120));
+            ends[i] = starts[i].plusMinutes(15 + random.nextInt(45));
+        }
+    }
+
+    @Benchmark
+    public boolean roomIsAvailable() {
+        int i = next++ & (QUERIES - 1);
+        return room.isAvailable(starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public boolean streamOverLocalDateTime() {
+        int i = next++ & (QUERIES - 1);
+        LocalDateTime start = starts[i];
+        LocalDateTime end = ends[i];
+        return bookings.stream()
+                .noneMatch(booking -> !booking.getEndTime().isBefore(start) && !booking.getStartTime().isAfter(end));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.payment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentProcessor#processPayment} mot förfalskningar i minnet, så att
+ * det som mäts är processorns egen kostnad (t.ex. SQL-strängen) och inte
+ * nätverk eller databas. {@code PreparedStatement} har för många metoder för
+ * en egen klass och görs därför med en {@link Proxy}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentProcessorBenchmark {
+
+    @Param({"true", "false"})
+    boolean chargeSucceeds;
+
+    private PaymentProcessor paymentProcessor;
+    private int updates;
+    private double confirmedAmount;
+    private double amount = 100.0;
+
+    @Setup
+    public void setUp() {
+        PaymentApiResponse response = new PaymentApiResponse(chargeSucceeds);
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeUpdate")) {
+                        return ++updates;
+                    }
+                    return null;
+                });
+        DatabaseConnection databaseConnection = new DatabaseConnection() {
+            @Override
+            public PreparedStatement getInstance() {
+                return statement;
+            }
+
+            @Override
+            public void executeUpdate(String s) {
+                updates++;
+            }
+        };
+        paymentProcessor = new PaymentProcessor((apiKey, charged) -> response,
+                (mail, confirmed) -> confirmedAmount += confirmed, databaseConnection);
+    }
+
+    @Benchmark
+    public boolean processPayment() throws SQLException {
+        amount += 0.01;
+        return paymentProcessor.processPayment(amount);
+    }
+}
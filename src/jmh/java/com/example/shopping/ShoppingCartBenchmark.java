@@ -0,0 +1,58 @@
+package com.example.shopping;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShoppingCart} med olika många varor. {@code addItem} ökar antalet
+ * för en vara som redan finns, så kundvagnens storlek är densamma under hela
+ * mätningen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int cartSize;
+
+    private ShoppingCart cart;
+    private String[] productNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cart = new ShoppingCart();
+        productNames = new String[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            productNames[i] = "product" + i;
+            cart.addItem(productNames[i], 10.0 + i % 97, 1 + i % 5, i % 4 * 5);
+        }
+    }
+
+    @Benchmark
+    public int addItem() {
+        int i = next++ % cartSize;
+        cart.addItem(productNames[i], 10.0 + i % 97, 1, i % 4 * 5);
+        return cart.itemCount();
+    }
+
+    @Benchmark
+    public double getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+}
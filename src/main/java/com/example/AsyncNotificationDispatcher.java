@@ -0,0 +1,160 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Skickar notifieringar i bakgrunden så att bokningsanropet inte väntar på
+ * mejl- eller SMS-tjänsten. Uppdrag läggs i en begränsad kö och hanteras av
+ * virtuella trådar; misslyckade utskick försöks igen med exponentiell väntan.
+ * {@link #close()} tar inte emot nya uppdrag men tömmer kön innan den returnerar.
+ * Ett oväntat fel från tjänsten räknas som misslyckat utan nya försök, och
+ * arbetaren fortsätter med nästa uppdrag.
+ */
+public class AsyncNotificationDispatcher implements NotificationService, AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_WORKERS = 16;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private interface Delivery {
+        void send(NotificationService service) throws NotificationException;
+    }
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Delivery> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final AtomicLong failedDeliveries = new AtomicLong();
+    // Läslåset hålls av enqueue, skrivlåset när close stänger, så inget uppdrag hamnar i kön efter tömningen
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    public AsyncNotificationDispatcher(NotificationService delegate) {
+        this(delegate, DEFAULT_QUEUE_CAPACITY, DEFAULT_WORKERS, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    public AsyncNotificationDispatcher(NotificationService delegate,
+                                       int queueCapacity,
+                                       int workerCount,
+                                       int maxAttempts,
+                                       Duration initialBackoff) {
+        if (queueCapacity < 1 || workerCount < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Kökapacitet, antal arbetare och antal försök måste vara minst 1");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("notification-worker-" + i).start(this::work));
+        }
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        enqueue(service -> service.sendBookingConfirmation(booking));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        enqueue(service -> service.sendCancellationConfirmation(booking));
+    }
+
+    public long getFailedDeliveries() {
+        return failedDeliveries.get();
+    }
+
+    public int getPendingDeliveries() {
+        return queue.size();
+    }
+
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "notification-drain"));
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // Uppdrag som hann läggas i kön medan arbetarna avslutades
+        try {
+            Delivery delivery;
+            while ((delivery = queue.poll()) != null) {
+                deliver(delivery);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Delivery delivery) throws NotificationException {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new NotificationException("Notifieringstjänsten är stängd");
+            }
+            // Hellre tappa en notifiering än att låta bokningen vänta på en full kö
+            if (!queue.offer(delivery)) {
+                throw new NotificationException("Notifieringskön är full");
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Delivery delivery = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (delivery != null) {
+                    deliver(delivery);
+                } else if (closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(Delivery delivery) throws InterruptedException {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                delivery.send(delegate);
+                return;
+            } catch (NotificationException e) {
+                if (attempt < maxAttempts) {
+                    Thread.sleep(backoff);
+                    backoff *= 2;
+                }
+            } catch (RuntimeException e) {
+                // Ett programfel blir inte bättre av att försöka igen
+                break;
+            }
+        }
+        failedDeliveries.incrementAndGet();
+    }
+}
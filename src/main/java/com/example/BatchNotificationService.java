@@ -0,0 +1,15 @@
+package com.example;
+
+import java.util.List;
+
+public interface BatchNotificationService extends NotificationService {
+    void sendBookingConfirmations(List<Booking> bookings) throws NotificationException;
+    void sendCancellationConfirmations(List<Booking> bookings) throws NotificationException;
+
+    static BatchNotificationService adapt(NotificationService service) {
+        if (service instanceof BatchNotificationService batchService) {
+            return batchService;
+        }
+        return new SingleMessageBatchAdapter(service);
+    }
+}
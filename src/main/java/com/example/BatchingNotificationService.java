@@ -0,0 +1,181 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samlar ihop enskilda bekräftelser och skickar dem som satser till en
+ * {@link BatchNotificationService}. En sats skickas när den når
+ * {@code maxBatchSize} meddelanden eller när {@code maxDelay} har gått sedan
+ * det första meddelandet i den, beroende på vad som inträffar först.
+ * Bekräftelser och avbokningar ligger i samma kö och skickas i den ordning de
+ * kom, så en avbokning går aldrig före bekräftelsen av samma bokning. Efter
+ * {@link #close()} skickas varje meddelande direkt i anroparens tråd.
+ */
+public class BatchingNotificationService implements NotificationService, AutoCloseable {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+
+    private record Message(boolean confirmation, Booking booking) {
+    }
+
+    private final BatchNotificationService delegate;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final Object lock = new Object();
+    private List<Message> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    public BatchingNotificationService(NotificationService delegate) {
+        this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    public BatchingNotificationService(NotificationService delegate, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Satsstorleken måste vara minst 1");
+        }
+        this.delegate = BatchNotificationService.adapt(delegate);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "notification-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        if (!add(new Message(true, booking))) {
+            awaitClosed();
+            delegate.sendBookingConfirmations(List.of(booking));
+        }
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        if (!add(new Message(false, booking))) {
+            awaitClosed();
+            delegate.sendCancellationConfirmations(List.of(booking));
+        }
+    }
+
+    // Skickar det som väntar och returnerar när det är skickat, efter satser som redan är på väg
+    public void flush() {
+        Future<?> delivery;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            delivery = scheduler.submit(this::deliverPending);
+        }
+        try {
+            delivery.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // deliver räknar redan sina fel, så hit kommer bara oväntade fel
+            failedBatches.incrementAndGet();
+        }
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    /*
+     * Stänger och schemalägger den sista tömningen under samma lås som
+     * meddelandena läggs till under, så att inget kan schemaläggas efter
+     * att schemaläggaren har stängts.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                scheduler.execute(this::deliverPending);
+                scheduler.shutdown();
+            }
+        }
+        awaitClosed();
+    }
+
+    // Falskt efter close; då har schemaläggaren stängts och anroparen skickar meddelandet själv
+    private boolean add(Message message) {
+        synchronized (lock) {
+            if (closed) {
+                return false;
+            }
+            pending.add(message);
+            if (pending.size() >= maxBatchSize) {
+                List<Message> batch = pending;
+                pending = new ArrayList<>();
+                scheduler.execute(() -> deliver(batch));
+            }
+            scheduleFlush();
+            return true;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::deliverPending, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Körs alltid i schemaläggarens enda tråd, så satserna skickas i den ordning de bildades
+    private void deliverPending() {
+        List<Message> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushScheduled = false;
+        }
+        deliver(batch);
+    }
+
+    // Ett meddelande som skickas efter close väntar tills de sista satserna har gått iväg
+    private void awaitClosed() {
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Delar satsen i följder av samma slag och skickar dem i tur och ordning
+    private void deliver(List<Message> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            boolean confirmation = batch.get(from).confirmation();
+            int to = from;
+            List<Booking> run = new ArrayList<>();
+            while (to < batch.size() && batch.get(to).confirmation() == confirmation) {
+                run.add(batch.get(to).booking());
+                to++;
+            }
+            try {
+                if (confirmation) {
+                    delegate.sendBookingConfirmations(run);
+                } else {
+                    delegate.sendCancellationConfirmations(run);
+                }
+            } catch (NotificationException | RuntimeException e) {
+                // Ett fel får inte heller tyst ta med sig resten av satsen
+                failedBatches.incrementAndGet();
+            }
+            from = to;
+        }
+    }
+}
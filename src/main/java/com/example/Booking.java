@@ -7,18 +7,45 @@ public class Booking {
     private final String roomId;
     private final LocalDateTime startTime;
     private final LocalDateTime endTime;
+    // Samma tider som nanosekunder sedan epoken, så att överlappskontroller blir jämförelser av long
+    private final long startEpochNanos;
+    private final long endEpochNanos;
 
     public Booking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        // Tiderna räknas om till nanosekunder direkt, så en saknad tid måste stoppas här
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Bokning kräver start- och sluttid");
+        }
         this.id = id;
         this.roomId = roomId;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.startEpochNanos = BookingTimes.toEpochNanos(startTime);
+        this.endEpochNanos = BookingTimes.toEpochNanos(endTime);
     }
 
     public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        if (BookingTimes.isExact(startKey) && BookingTimes.isExact(endKey)) {
+            return overlaps(startKey, endKey);
+        }
         return !endTime.isBefore(start) && !startTime.isAfter(end);
     }
 
+    // Nycklarna måste vara exakta; bokningens egna får vara mättade eftersom ordningen mot exakta värden bevaras
+    boolean overlaps(long startKey, long endKey) {
+        return endEpochNanos >= startKey && startEpochNanos <= endKey;
+    }
+
+    long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
     public String getId() {
         return id;
     }
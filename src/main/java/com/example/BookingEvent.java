@@ -0,0 +1,48 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+/**
+ * En ändring i journalen. Sekvensnumret är händelsens position i
+ * {@link BookingJournal} och börjar på 0; tidsstämpeln kommer från
+ * bokningssystemets {@link TimeProvider}.
+ */
+public class BookingEvent {
+
+    public enum Type {
+        BOOKING_CREATED,
+        BOOKING_CANCELLED,
+        // Ett enskilt tillfälle i en återkommande bokning; bokningen har seriens id och tillfällets tider
+        OCCURRENCE_CANCELLED,
+        // Resten av en påbörjad serie avbokad; bokningen är den avkortade serien
+        SERIES_ENDED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final LocalDateTime timestamp;
+    private final Booking booking;
+
+    public BookingEvent(long sequence, Type type, LocalDateTime timestamp, Booking booking) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.booking = booking;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Intervallträd över bokningar, sorterat på starttid (och id vid lika starttid).
+ * Varje nod håller den största sluttiden i sitt delträd så att överlappsfrågor
+ * kan hoppa över hela grenar: O(log n) för "finns någon överlappning" och
+ * O(log n + k) för att lista de k överlappande bokningarna.
+ * Intervallen är slutna i båda ändar, precis som {@link Booking#overlaps}.
+ * Jämförelserna görs på bokningarnas epok-nanosekunder ({@link BookingTimes})
+ * så att sökningen varken allokerar eller jämför {@code LocalDateTime} fält för fält.
+ */
+final class BookingIntervalTree implements BookingStore {
+
+    private static final class Node {
+        Booking booking;
+        int priority;
+        Node left;
+        Node right;
+        long maxEnd;
+
+        Node(Booking booking, int priority) {
+            this.booking = booking;
+            this.priority = priority;
+            this.maxEnd = booking.getEndEpochNanos();
+        }
+    }
+
+    private final Map<String, Booking> bookingsById = new HashMap<>();
+    private Node root;
+    private int size;
+
+    @Override
+    public void add(Booking booking) {
+        Booking previous = bookingsById.put(booking.getId(), booking);
+        if (previous != null) {
+            root = delete(root, previous);
+        }
+        root = insert(root, new Node(booking, ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Override
+    public Booking remove(String bookingId) {
+        Booking removed = bookingsById.remove(bookingId);
+        if (removed != null) {
+            root = delete(root, removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public Booking get(String bookingId) {
+        return bookingsById.get(bookingId);
+    }
+
+    @Override
+    public boolean contains(String bookingId) {
+        return bookingsById.containsKey(bookingId);
+    }
+
+    @Override
+    public boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        if (!BookingTimes.isExact(startKey) || !BookingTimes.isExact(endKey)) {
+            return overlapsAnySlow(root, start, end);
+        }
+        Node node = root;
+        while (node != null) {
+            if (node.booking.overlaps(startKey, endKey)) {
+                return true;
+            }
+            // Om vänster delträd når fram till start men saknar överlapp börjar
+            // allt i höger delträd efter end, så endast en gren behöver följas.
+            if (node.left != null && node.left.maxEnd >= startKey) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachOverlapping(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        if (BookingTimes.isExact(startKey) && BookingTimes.isExact(endKey)) {
+            collect(root, startKey, endKey, action);
+        } else {
+            for (Booking booking : toList()) {
+                if (booking.overlaps(start, end)) {
+                    action.accept(booking);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Booking> toList() {
+        List<Booking> result = new ArrayList<>(size);
+        inOrder(root, result);
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void collect(Node node, long startKey, long endKey, Consumer<Booking> action) {
+        if (node == null || node.maxEnd < startKey) {
+            return;
+        }
+        collect(node.left, startKey, endKey, action);
+        if (node.booking.getStartEpochNanos() > endKey) {
+            return;
+        }
+        if (node.booking.getEndEpochNanos() >= startKey) {
+            action.accept(node.booking);
+        }
+        collect(node.right, startKey, endKey, action);
+    }
+
+    // Tider utanför det exakta intervallet i BookingTimes är ovanliga; då görs en fullständig genomgång
+    private static boolean overlapsAnySlow(Node node, LocalDateTime start, LocalDateTime end) {
+        return node != null && (node.booking.overlaps(start, end)
+                || overlapsAnySlow(node.left, start, end) || overlapsAnySlow(node.right, start, end));
+    }
+
+    private void inOrder(Node node, List<Booking> result) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, result);
+        result.add(node.booking);
+        inOrder(node.right, result);
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            size++;
+            return added;
+        }
+        int cmp = compare(added.booking, node.booking);
+        if (cmp == 0) {
+            node.booking = added.booking;
+        } else if (cmp < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, Booking booking) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(booking, node.booking);
+        if (cmp == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, booking);
+        } else {
+            node.right = delete(node.right, booking);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.booking.getEndEpochNanos();
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(Booking a, Booking b) {
+        int cmp = Long.compare(a.getStartEpochNanos(), b.getStartEpochNanos());
+        if (cmp == 0) {
+            cmp = a.getStartTime().compareTo(b.getStartTime());
+        }
+        return cmp != 0 ? cmp : a.getId().compareTo(b.getId());
+    }
+}
@@ -0,0 +1,308 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal över alla bokningar och avbokningar i den ordning de gjordes.
+ * Prenumeranter väljer själva var i journalen de börjar och får bara så
+ * många händelser som de har begärt via {@link Flow.Subscription#request};
+ * en långsam prenumerant hamnar efter i journalen i stället för att buffra
+ * eller bromsa bokningarna. {@link #replay} bygger upp rummens bokningar
+ * igen genom att spela upp händelserna i ordning. Händelser som redan finns
+ * i ett beständigt lager, t.ex. {@link FileRoomRepository}, tas bort med
+ * {@link #truncateBefore} så att journalen inte växer utan gräns.
+ */
+public class BookingJournal implements AutoCloseable {
+    private final List<BookingEvent> events = new ArrayList<>();
+    // Sekvensnumret för events.get(0); ökar när början av journalen tas bort
+    private long firstSequence;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Signaleras när en händelse läggs till, en prenumerant begär fler eller journalen stängs
+    private final Condition changed = lock.newCondition();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final ExecutorService deliveries = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("booking-journal-", 0).factory());
+    private boolean closed;
+
+    public BookingEvent append(BookingEvent.Type type, LocalDateTime timestamp, Booking booking) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journalen är stängd");
+            }
+            BookingEvent event = new BookingEvent(firstSequence + events.size(), type, timestamp, booking);
+            events.add(event);
+            changed.signalAll();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sekvensnumret som nästa händelse kommer att få
+    public long getNextSequence() {
+        lock.lock();
+        try {
+            return nextSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sekvensnumret för den äldsta händelsen som finns kvar
+    public long getFirstSequence() {
+        lock.lock();
+        try {
+            return firstSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Tar bort händelserna före sequence, när de redan finns i ett beständigt
+     * lager och replay bara behöver spela upp resten. Händelser som en
+     * prenumerant ännu inte fått behålls tills den har fått dem. Returnerar
+     * sekvensnumret för den äldsta händelsen som finns kvar.
+     */
+    public long truncateBefore(long sequence) {
+        lock.lock();
+        try {
+            checkSequence(sequence);
+            long keepFrom = sequence;
+            for (Subscription subscription : subscriptions) {
+                keepFrom = Math.min(keepFrom, subscription.next);
+            }
+            if (keepFrom > firstSequence) {
+                events.subList(0, (int) (keepFrom - firstSequence)).clear();
+                firstSequence = keepFrom;
+            }
+            return firstSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<BookingEvent> read(long fromSequence, int maxEvents) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("Antal händelser måste vara minst 1");
+        }
+        lock.lock();
+        try {
+            checkSequence(fromSequence);
+            int from = (int) (fromSequence - firstSequence);
+            return List.copyOf(events.subList(from, (int) Math.min(events.size(), (long) from + maxEvents)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Levererar händelserna från fromSequence och framåt, även de som läggs
+     * till senare, på en egen virtuell tråd som försvinner när leveransen är
+     * klar. Prenumeranten får onComplete när journalen stängs och har då fått
+     * allt den begärt som fanns i journalen.
+     */
+    public void subscribe(long fromSequence, Flow.Subscriber<? super BookingEvent> subscriber) {
+        Subscription subscription;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journalen är stängd");
+            }
+            checkSequence(fromSequence);
+            subscription = new Subscription(fromSequence, subscriber);
+            subscriptions.add(subscription);
+            // Startas under låset så att close inte hinner stänga exekveraren emellan
+            deliveries.execute(subscription::deliver);
+        } finally {
+            lock.unlock();
+        }
+        // onSubscribe ska vara klart innan första onNext; leveransen väntar på det
+        try {
+            subscriber.onSubscribe(subscription);
+        } finally {
+            subscription.subscribed();
+        }
+    }
+
+    /*
+     * Spelar upp händelserna som finns kvar i journalen mot rummen i
+     * repositoryt, som måste finnas. Har journalen inte kortats av behöver
+     * rummen inte ha några bokningar; annars ska de ha bokningarna från före
+     * getFirstSequence(), t.ex. från ett FileRoomRepository. Varje ändrat rum
+     * sparas en gång när alla händelser är applicerade.
+     */
+    public void replay(RoomRepository roomRepository) {
+        Map<String, Room> changedRooms = new LinkedHashMap<>();
+        for (BookingEvent event : read(getFirstSequence(), Integer.MAX_VALUE)) {
+            Booking booking = event.getBooking();
+            Room room = changedRooms.computeIfAbsent(booking.getRoomId(), roomId -> roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalStateException("Rummet i journalen existerar inte: " + roomId)));
+            switch (event.getType()) {
+                case BOOKING_CREATED -> room.addBooking(booking);
+                case BOOKING_CANCELLED -> room.removeBooking(booking.getId());
+                case OCCURRENCE_CANCELLED -> room.cancelOccurrence(booking.getId(), booking.getStartTime());
+                case SERIES_ENDED -> room.addBooking(booking);
+            }
+        }
+        for (Room room : changedRooms.values()) {
+            roomRepository.save(room);
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+            deliveries.shutdown();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            deliveries.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Anropas med låset taget
+    private long nextSequence() {
+        return firstSequence + events.size();
+    }
+
+    private void checkSequence(long sequence) {
+        if (sequence < firstSequence || sequence > nextSequence()) {
+            throw new IllegalArgumentException("Ogiltig position i journalen: " + sequence);
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super BookingEvent> subscriber;
+        // Skyddas av journalens lås
+        private long next;
+        private long demand;
+        private boolean cancelled;
+        private long invalidRequest;
+        private boolean subscribed;
+
+        Subscription(long fromSequence, Flow.Subscriber<? super BookingEvent> subscriber) {
+            this.next = fromSequence;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    invalidRequest = n;
+                } else {
+                    // Mättas i stället för att slå runt, som Flow kräver
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void subscribed() {
+            lock.lock();
+            try {
+                subscribed = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void deliver() {
+            try {
+                while (true) {
+                    List<BookingEvent> batch;
+                    lock.lock();
+                    try {
+                        while (!subscribed
+                                || (!cancelled && invalidRequest == 0 && !(demand > 0 && next < nextSequence()) && !closed)) {
+                            changed.await();
+                        }
+                        if (cancelled) {
+                            return;
+                        }
+                        if (invalidRequest != 0) {
+                            cancelled = true;
+                            batch = null;
+                        } else if (demand > 0 && next < nextSequence()) {
+                            int from = (int) (next - firstSequence);
+                            int to = (int) (from + Math.min(demand, events.size() - from));
+                            batch = List.copyOf(events.subList(from, to));
+                            next += batch.size();
+                            demand -= batch.size();
+                        } else {
+                            batch = List.of();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    // Anropen till prenumeranten görs utan lås så att den kan begära fler direkt
+                    if (batch == null) {
+                        subscriber.onError(new IllegalArgumentException(
+                                "Antal begärda händelser måste vara positivt: " + invalidRequest));
+                        return;
+                    }
+                    if (batch.isEmpty()) {
+                        subscriber.onComplete();
+                        return;
+                    }
+                    for (BookingEvent event : batch) {
+                        subscriber.onNext(event);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                subscriber.onError(e);
+            } finally {
+                lock.lock();
+                try {
+                    subscriptions.remove(this);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+/**
+ * Mätpunkter för {@link BookingSystem}. Tidtagning sker som
+ * {@code long start = metrics.startTimer(); ... metrics.stopTimer(timer, start)}
+ * så att inget objekt skapas per anrop; {@link #NOOP} läser inte ens klockan.
+ */
+public interface BookingMetrics {
+
+    enum Timer {
+        BOOK_ROOM,
+        BOOK_RECURRING_ROOM,
+        BOOK_ROOMS,
+        GET_AVAILABLE_ROOMS,
+        FIND_FREE_SLOTS,
+        CANCEL_BOOKING,
+        REPOSITORY_FIND_BY_ID,
+        REPOSITORY_FIND_ALL,
+        REPOSITORY_FIND_BY_BOOKING_ID,
+        REPOSITORY_SAVE,
+        NOTIFICATION_SEND
+    }
+
+    enum Counter {
+        // Bokningar som nekats för att tiden redan var upptagen
+        BOOKING_CONFLICTS,
+        // Avbokningar som nekats för att bokningen redan börjat
+        STARTED_BOOKING_CANCELLATIONS,
+        // Notifieringsfel som svalts
+        NOTIFICATION_FAILURES,
+        // Ändringar som gjorts men inte hann skrivas i journalen innan den stängdes
+        JOURNAL_FAILURES
+    }
+
+    BookingMetrics NOOP = new BookingMetrics() {
+        @Override
+        public long startTimer() {
+            return 0;
+        }
+
+        @Override
+        public void stopTimer(Timer timer, long startNanos) {
+        }
+
+        @Override
+        public void increment(Counter counter) {
+        }
+    };
+
+    long startTimer();
+
+    void stopTimer(Timer timer, long startNanos);
+
+    void increment(Counter counter);
+}
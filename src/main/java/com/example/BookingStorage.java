@@ -0,0 +1,10 @@
+package com.example;
+
+public enum BookingStorage {
+    // Intervallträd med bokningsobjekten kvar i minnet
+    TREE,
+    // Primitiva fält sorterade på starttid; bokningsobjekt skapas först när de efterfrågas
+    COMPACT,
+    // Oföränderliga versioner som byts ut vid varje ändring; läsningar tar inga lås
+    SNAPSHOT
+}
@@ -0,0 +1,24 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Lagring av ett rums enskilda bokningar; id-uppslag och överlappsfrågor ska inte kräva genomsökning
+interface BookingStore {
+    void add(Booking booking);
+
+    Booking remove(String bookingId);
+
+    Booking get(String bookingId);
+
+    boolean contains(String bookingId);
+
+    boolean overlapsAny(LocalDateTime start, LocalDateTime end);
+
+    void forEachOverlapping(LocalDateTime start, LocalDateTime end, Consumer<Booking> action);
+
+    List<Booking> toList();
+
+    int size();
+}
@@ -1,29 +1,140 @@
 package com.example;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class BookingSystem {
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final int AVAILABILITY_CHUNK_SIZE = 256;
+    private static final int LOCK_STRIPES = 256;
+
     private final TimeProvider timeProvider;
     private final RoomRepository roomRepository;
     private final NotificationService notificationService;
-
+    private final OccupancyIndex occupancyIndex;
+    private final BookingMetrics metrics;
+    private final BookingJournal journal;
+    private final Supplier<String> bookingIds;
+    // Levande bokningar per rum; läses in från repositoryt första gången ett id saknas
+    private final Map<String, String> roomIdByBookingId = new ConcurrentHashMap<>();
+    private volatile boolean bookingIdsLoaded;
+    private final ReentrantLock[] roomLocks = new ReentrantLock[LOCK_STRIPES];
+    // Rummen sorterade på id för sidvisa sökningar; läses in vid första sidan och hålls sedan uppdaterad
+    private final ConcurrentSkipListMap<String, Room> roomsById = new ConcurrentSkipListMap<>();
+    private final AtomicInteger roomCount = new AtomicInteger();
+    private volatile boolean roomsLoaded;
+    // Senast publicerade version av alla rum; hålls bara uppdaterad sedan någon har bett om en
+    private final AtomicReference<RepositorySnapshot> published = new AtomicReference<>(RepositorySnapshot.EMPTY);
+    // Rum utan BookingStorage.SNAPSHOT som ändrats, eller inte setts, sedan de senast kopierades in
+    private final Map<String, Room> staleRooms = new ConcurrentHashMap<>();
+    private volatile boolean publishing;
+    private volatile boolean seeded;
 
     public BookingSystem(TimeProvider timeProvider,
                          RoomRepository roomRepository,
                          NotificationService notificationService) {
+        this(timeProvider, roomRepository, notificationService, null);
+    }
+
+    public BookingSystem(TimeProvider timeProvider,
+                         RoomRepository roomRepository,
+                         NotificationService notificationService,
+                         OccupancyIndex occupancyIndex) {
+        this(timeProvider, roomRepository, notificationService, occupancyIndex, null);
+    }
+
+    public BookingSystem(TimeProvider timeProvider,
+                         RoomRepository roomRepository,
+                         NotificationService notificationService,
+                         OccupancyIndex occupancyIndex,
+                         BookingMetrics metrics) {
+        this(timeProvider, roomRepository, notificationService, occupancyIndex, metrics, null);
+    }
+
+    public BookingSystem(TimeProvider timeProvider,
+                         RoomRepository roomRepository,
+                         NotificationService notificationService,
+                         OccupancyIndex occupancyIndex,
+                         BookingMetrics metrics,
+                         BookingJournal journal) {
+        this(timeProvider, roomRepository, notificationService, occupancyIndex, metrics, journal, null);
+    }
+
+    // bookingIds låter ShardedBookingSystem koda in sin partition i varje nytt boknings-id
+    BookingSystem(TimeProvider timeProvider,
+                  RoomRepository roomRepository,
+                  NotificationService notificationService,
+                  OccupancyIndex occupancyIndex,
+                  BookingMetrics metrics,
+                  BookingJournal journal,
+                  Supplier<String> bookingIds) {
         this.timeProvider = timeProvider;
-        this.roomRepository = roomRepository;
-        this.notificationService = notificationService;
+        this.occupancyIndex = occupancyIndex;
+        this.journal = journal;
+        this.bookingIds = bookingIds != null ? bookingIds : () -> UUID.randomUUID().toString();
+        // Utan mätning används beroendena som de är, så att avstängd mätning inte kostar något
+        this.metrics = metrics != null ? metrics : BookingMetrics.NOOP;
+        if (this.metrics == BookingMetrics.NOOP) {
+            this.roomRepository = roomRepository;
+            this.notificationService = notificationService;
+        } else {
+            this.roomRepository = new TimedRoomRepository(roomRepository, this.metrics);
+            this.notificationService = new TimedNotificationService(notificationService, this.metrics);
+        }
+        for (int i = 0; i < roomLocks.length; i++) {
+            roomLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Sparar rummet och tar med det i beläggningsindexet och i nästa snapshot
+    public void addRoom(Room room) {
+        if (room == null) {
+            throw new IllegalArgumentException("Rummet kan inte vara null");
+        }
+        ReentrantLock lock = lockFor(room.getId());
+        lock.lock();
+        try {
+            roomRepository.save(room);
+            publish(List.of(room));
+            rememberRoom(room);
+            for (Booking booking : room.getBookings()) {
+                roomIdByBookingId.put(booking.getId(), room.getId());
+            }
+            for (RecurringBooking recurring : room.getRecurringBookings()) {
+                roomIdByBookingId.put(recurring.getId(), room.getId());
+            }
+            if (occupancyIndex != null) {
+                occupancyIndex.addRoom(room);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        long start = metrics.startTimer();
+        try {
+            return doBookRoom(roomId, startTime, endTime);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.BOOK_ROOM, start);
+        }
+    }
+
+    private boolean doBookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
         if (startTime == null || endTime == null || roomId == null) {
             throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
         }
 
-        if (startTime.isBefore(timeProvider.getCurrentTime())) {
+        LocalDateTime now = timeProvider.getCurrentTime();
+        if (startTime.isBefore(now)) {
             throw new IllegalArgumentException("Kan inte boka tid i dåtid");
         }
 
@@ -31,70 +142,766 @@ public class BookingSystem {
             throw new IllegalArgumentException("Sluttid måste vara efter starttid");
         }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+        Booking booking;
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            if (!room.isAvailable(startTime, endTime)) {
+                metrics.increment(BookingMetrics.Counter.BOOKING_CONFLICTS);
+                return false;
+            }
 
-        if (!room.isAvailable(startTime, endTime)) {
-            return false;
+            checkJournalOpen();
+            booking = new Booking(bookingIds.get(), roomId, startTime, endTime);
+            room.addBooking(booking);
+            roomRepository.save(room);
+            publish(List.of(room));
+            record(BookingEvent.Type.BOOKING_CREATED, now, booking);
+            roomIdByBookingId.put(booking.getId(), roomId);
+            if (occupancyIndex != null) {
+                occupancyIndex.onBookingAdded(room, booking);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendBookingConfirmation(booking);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            metrics.increment(BookingMetrics.Counter.NOTIFICATION_FAILURES);
         }
 
-        Booking booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
-        room.addBooking(booking);
-        roomRepository.save(room);
+        return true;
+    }
+
+    public boolean bookRecurringRoom(String roomId, LocalDateTime firstStart, Duration duration, Recurrence recurrence) {
+        long start = metrics.startTimer();
+        try {
+            return doBookRecurringRoom(roomId, firstStart, duration, recurrence);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.BOOK_RECURRING_ROOM, start);
+        }
+    }
+
+    private boolean doBookRecurringRoom(String roomId, LocalDateTime firstStart, Duration duration, Recurrence recurrence) {
+        if (firstStart == null || duration == null || roomId == null || recurrence == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        if (firstStart.isBefore(now)) {
+            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+        }
+
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+
+        RecurringBooking booking = new RecurringBooking(bookingIds.get(), roomId, firstStart, duration, recurrence);
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            // Rummets bokningar under seriens tid prövas mot serien, som inte behöver räknas fram
+            for (Booking existing : room.getBookings(firstStart, booking.getLastEndTime())) {
+                if (booking.overlaps(existing.getStartTime(), existing.getEndTime())) {
+                    metrics.increment(BookingMetrics.Counter.BOOKING_CONFLICTS);
+                    return false;
+                }
+            }
+
+            checkJournalOpen();
+            room.addBooking(booking);
+            roomRepository.save(room);
+            publish(List.of(room));
+            record(BookingEvent.Type.BOOKING_CREATED, now, booking);
+            roomIdByBookingId.put(booking.getId(), roomId);
+            if (occupancyIndex != null) {
+                occupancyIndex.onBookingAdded(room, booking);
+            }
+        } finally {
+            lock.unlock();
+        }
 
         try {
             notificationService.sendBookingConfirmation(booking);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            metrics.increment(BookingMetrics.Counter.NOTIFICATION_FAILURES);
+        }
+
+        return true;
+    }
+
+    public boolean bookRooms(List<BookingRequest> requests) {
+        long start = metrics.startTimer();
+        try {
+            return doBookRooms(requests);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.BOOK_ROOMS, start);
+        }
+    }
+
+    private boolean doBookRooms(List<BookingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Bokningslistan kan inte vara null");
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        Map<String, List<BookingRequest>> requestsByRoom = new TreeMap<>();
+        for (BookingRequest request : requests) {
+            if (request == null || request.getStartTime() == null || request.getEndTime() == null || request.getRoomId() == null) {
+                throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+            }
+            if (request.getStartTime().isBefore(now)) {
+                throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+            }
+            if (request.getEndTime().isBefore(request.getStartTime())) {
+                throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+            }
+            requestsByRoom.computeIfAbsent(request.getRoomId(), id -> new ArrayList<>()).add(request);
+        }
+
+        List<Booking> booked = new ArrayList<>(requests.size());
+        List<ReentrantLock> locks = locksFor(requestsByRoom.keySet());
+        locks.forEach(ReentrantLock::lock);
+        try {
+            Map<Room, List<BookingRequest>> requestsByLoadedRoom = new LinkedHashMap<>();
+            for (Map.Entry<String, List<BookingRequest>> entry : requestsByRoom.entrySet()) {
+                Room room = roomRepository.findById(entry.getKey())
+                        .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+                List<BookingRequest> roomRequests = entry.getValue();
+                roomRequests.sort(Comparator.comparing(BookingRequest::getStartTime));
+                if (!fitsInRoom(room, roomRequests)) {
+                    metrics.increment(BookingMetrics.Counter.BOOKING_CONFLICTS);
+                    return false;
+                }
+                requestsByLoadedRoom.put(room, roomRequests);
+            }
+
+            checkJournalOpen();
+            Map<Room, List<Booking>> bookedByRoom = new LinkedHashMap<>();
+            List<Room> saved = new ArrayList<>(requestsByLoadedRoom.size());
+            try {
+                for (Map.Entry<Room, List<BookingRequest>> entry : requestsByLoadedRoom.entrySet()) {
+                    Room room = entry.getKey();
+                    List<Booking> roomBookings = new ArrayList<>(entry.getValue().size());
+                    bookedByRoom.put(room, roomBookings);
+                    for (BookingRequest request : entry.getValue()) {
+                        Booking booking = new Booking(bookingIds.get(), room.getId(),
+                                request.getStartTime(), request.getEndTime());
+                        room.addBooking(booking);
+                        roomBookings.add(booking);
+                    }
+                    roomRepository.save(room);
+                    saved.add(room);
+                }
+            } catch (RuntimeException e) {
+                rollBack(bookedByRoom, saved);
+                throw e;
+            }
+            // Alla rummen i samma version, så att läsare aldrig ser halva satsen
+            publish(saved);
+
+            for (Map.Entry<Room, List<Booking>> entry : bookedByRoom.entrySet()) {
+                for (Booking booking : entry.getValue()) {
+                    record(BookingEvent.Type.BOOKING_CREATED, now, booking);
+                    roomIdByBookingId.put(booking.getId(), booking.getRoomId());
+                    if (occupancyIndex != null) {
+                        occupancyIndex.onBookingAdded(entry.getKey(), booking);
+                    }
+                    booked.add(booking);
+                }
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        if (!booked.isEmpty()) {
+            try {
+                BatchNotificationService.adapt(notificationService).sendBookingConfirmations(booked);
+            } catch (NotificationException e) {
+                // Fortsätt även om notifieringen misslyckas
+                metrics.increment(BookingMetrics.Counter.NOTIFICATION_FAILURES);
+            }
         }
 
         return true;
     }
 
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        long start = metrics.startTimer();
+        try {
+            return findAvailableRooms(startTime, endTime);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.GET_AVAILABLE_ROOMS, start);
         }
+    }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+    private List<Room> findAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        validateSearchInterval(startTime, endTime);
+
+        if (occupancyIndex != null) {
+            return occupancyIndex.findAvailableRooms(startTime, endTime);
         }
 
-        return roomRepository.findAll().stream()
+        List<Room> rooms = roomRepository.findAll();
+        noticeRooms(rooms);
+        if (roomsLoaded) {
+            rooms.forEach(this::rememberRoom);
+        }
+        return rooms.stream()
                 .filter(room -> room.isAvailable(startTime, endTime))
                 .collect(Collectors.toList());
     }
 
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, String afterRoomId, int limit) {
+        long start = metrics.startTimer();
+        try {
+            return findAvailableRoomsPage(startTime, endTime, afterRoomId, limit);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.GET_AVAILABLE_ROOMS, start);
+        }
+    }
+
+    private List<Room> findAvailableRoomsPage(LocalDateTime startTime, LocalDateTime endTime, String afterRoomId, int limit) {
+        validateSearchInterval(startTime, endTime);
+
+        if (limit < 1) {
+            throw new IllegalArgumentException("Antal rum per sida måste vara minst 1");
+        }
+
+        loadRooms();
+        Collection<Room> candidates = afterRoomId == null
+                ? roomsById.values() : roomsById.tailMap(afterRoomId, false).values();
+        boolean parallel = roomCount.get() >= PARALLEL_THRESHOLD;
+        int chunkSize = Math.max(limit, AVAILABILITY_CHUNK_SIZE);
+
+        // Gå igenom rummen i id-ordning, en bit i taget, och sluta när sidan är full
+        List<Room> page = new ArrayList<>(Math.min(limit, AVAILABILITY_CHUNK_SIZE));
+        Iterator<Room> rooms = candidates.iterator();
+        List<Room> chunk = new ArrayList<>(chunkSize);
+        while (rooms.hasNext() && page.size() < limit) {
+            chunk.clear();
+            while (rooms.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(rooms.next());
+            }
+            (parallel ? chunk.parallelStream() : chunk.stream())
+                    .filter(room -> room.isAvailable(startTime, endTime))
+                    .limit(limit - page.size())
+                    .forEachOrdered(page::add);
+        }
+        return page;
+    }
+
+    // Läser in alla rum en gång; därefter kommer nya rum via addRoom eller sökningar över alla rum
+    private void loadRooms() {
+        if (roomsLoaded) {
+            return;
+        }
+        synchronized (roomsById) {
+            if (!roomsLoaded) {
+                List<Room> rooms = roomRepository.findAll();
+                noticeRooms(rooms);
+                for (Room room : rooms) {
+                    if (roomsById.putIfAbsent(room.getId(), room) == null) {
+                        roomCount.incrementAndGet();
+                    }
+                }
+                roomsLoaded = true;
+            }
+        }
+    }
+
+    private void rememberRoom(Room room) {
+        if (roomsById.put(room.getId(), room) == null) {
+            roomCount.incrementAndGet();
+        }
+    }
+
+    public List<FreeSlot> findFreeSlots(String roomId, LocalDateTime windowStart, LocalDateTime windowEnd,
+                                        Duration duration, int limit) {
+        long start = metrics.startTimer();
+        try {
+            validateSlotSearch(windowStart, windowEnd, duration, limit);
+            if (roomId == null) {
+                throw new IllegalArgumentException("Rum-id kan inte vara null");
+            }
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            return freeSlotsIn(room, windowStart, windowEnd, duration, limit);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.FIND_FREE_SLOTS, start);
+        }
+    }
+
+    // Luckor från flera rum, de tidigaste först (och i rum-id-ordning vid samma starttid)
+    public List<FreeSlot> findFreeSlots(Collection<String> roomIds, LocalDateTime windowStart, LocalDateTime windowEnd,
+                                        Duration duration, int limit) {
+        long start = metrics.startTimer();
+        try {
+            validateSlotSearch(windowStart, windowEnd, duration, limit);
+            if (roomIds == null) {
+                throw new IllegalArgumentException("Rumslistan kan inte vara null");
+            }
+            List<List<FreeSlot>> slotsByRoom = new ArrayList<>(roomIds.size());
+            for (String roomId : new TreeSet<>(roomIds)) {
+                Room room = roomRepository.findById(roomId)
+                        .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+                List<FreeSlot> roomSlots = freeSlotsIn(room, windowStart, windowEnd, duration, limit);
+                if (!roomSlots.isEmpty()) {
+                    slotsByRoom.add(roomSlots);
+                }
+            }
+            return mergeSlots(slotsByRoom, limit);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.FIND_FREE_SLOTS, start);
+        }
+    }
+
+    // Arkiverade, det vill säga passerade, bokningar i rummet som överlappar intervallet
+    public List<Booking> getBookingHistory(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        validateSearchInterval(startTime, endTime);
+        if (roomId == null) {
+            throw new IllegalArgumentException("Rum-id kan inte vara null");
+        }
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+        return room.getBookingHistory(startTime, endTime);
+    }
+
+    /*
+     * Underhållssteg som flyttar passerade månader till rummens arkiv, så att
+     * de inte längre prövas vid nya bokningar. Varje rum arkiveras under sitt
+     * lås och sparas om något flyttades; bokningar och läsningar arkiverar
+     * aldrig själva. Returnerar antalet arkiverade bokningar.
+     */
+    public int archiveFinishedBookings() {
+        LocalDateTime now = timeProvider.getCurrentTime();
+        int archived = 0;
+        for (Room room : roomRepository.findAll()) {
+            ReentrantLock lock = lockFor(room.getId());
+            lock.lock();
+            try {
+                List<Booking> archivedBookings = new ArrayList<>();
+                int count = room.archiveBefore(now, archivedBookings::add);
+                if (count > 0) {
+                    roomRepository.save(room);
+                    publish(List.of(room));
+                    for (Booking booking : archivedBookings) {
+                        roomIdByBookingId.remove(booking.getId());
+                    }
+                    if (occupancyIndex != null) {
+                        occupancyIndex.onBookingsArchived(room, archivedBookings);
+                    }
+                    archived += count;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return archived;
+    }
+
+    /*
+     * Alla rum som de ser ut just nu, utan lås. Första anropet läser in rummen
+     * från repositoryt; därefter publicerar varje ändring som görs här en ny
+     * version. Rum med BookingStorage.SNAPSHOT publiceras i O(log n) redan vid
+     * skrivningen, och en bokning över flera sådana rum syns i alla eller inget.
+     * Andra rum markeras bara som ändrade och kopieras i O(n log n) vid nästa
+     * anrop hit, så skrivningarna blir inte dyrare; flera ändringar i samma rum
+     * mellan två anrop kostar en kopia. Rum som dykt upp i repositoryt utan att
+     * gå via systemet tas med när de syns i en sökning över alla rum.
+     */
+    public RepositorySnapshot snapshot() {
+        if (!seeded) {
+            publishing = true;
+            List<Room> rooms = roomRepository.findAll();
+            // Rum som en samtidig skrivning redan har publicerat är nyare än det vi läste
+            published.updateAndGet(current -> {
+                RepositorySnapshot next = current;
+                for (Room room : rooms) {
+                    if (!next.contains(room.getId())) {
+                        next = next.with(room.snapshot());
+                    }
+                }
+                return next;
+            });
+            seeded = true;
+        }
+        if (staleRooms.isEmpty()) {
+            return published.get();
+        }
+        // Markeringen tas bort före kopian, så en ändring under kopieringen markerar rummet igen
+        List<Room> stale = new ArrayList<>();
+        for (Map.Entry<String, Room> entry : staleRooms.entrySet()) {
+            if (staleRooms.remove(entry.getKey(), entry.getValue())) {
+                stale.add(entry.getValue());
+            }
+        }
+        return published.updateAndGet(current -> {
+            RepositorySnapshot next = current;
+            for (Room room : stale) {
+                next = next.with(room.snapshot());
+            }
+            return next;
+        });
+    }
+
     public boolean cancelBooking(String bookingId) {
+        long start = metrics.startTimer();
+        try {
+            return doCancelBooking(bookingId);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.CANCEL_BOOKING, start);
+        }
+    }
+
+    private boolean doCancelBooking(String bookingId) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
 
-        Optional<Room> roomWithBooking = roomRepository.findAll().stream()
-                .filter(room -> room.hasBooking(bookingId))
-                .findFirst();
+        Optional<Room> roomWithBooking = findRoomWithBooking(bookingId);
 
         if (roomWithBooking.isEmpty()) {
             return false;
         }
 
         Room room = roomWithBooking.get();
-        Booking booking = room.getBooking(bookingId);
+        Booking booking;
+        ReentrantLock lock = lockFor(room.getId());
+        lock.lock();
+        try {
+            if (!room.hasBooking(bookingId)) {
+                // En arkiverad bokning har redan tagit slut; annars kan en samtidig avbokning ha hunnit före
+                if (room.hasArchivedBooking(bookingId)) {
+                    metrics.increment(BookingMetrics.Counter.STARTED_BOOKING_CANCELLATIONS);
+                    throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+                }
+                return false;
+            }
+
+            booking = room.getBooking(bookingId);
+            checkJournalOpen();
+
+            LocalDateTime now = timeProvider.getCurrentTime();
+            if (booking.getStartTime().isBefore(now)) {
+                RecurringBooking ended = booking instanceof RecurringBooking recurring ? recurring.endingBefore(now) : null;
+                if (ended == null || ended == booking) {
+                    metrics.increment(BookingMetrics.Counter.STARTED_BOOKING_CANCELLATIONS);
+                    throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+                }
+                // En påbörjad serie behåller sina tidigare tillfällen; bara de kommande avbokas
+                room.addBooking(ended);
+                roomRepository.save(room);
+                publish(List.of(room));
+                record(BookingEvent.Type.SERIES_ENDED, now, ended);
+                booking = ended;
+            } else {
+                room.removeBooking(bookingId);
+                roomRepository.save(room);
+                publish(List.of(room));
+                record(BookingEvent.Type.BOOKING_CANCELLED, now, booking);
+                roomIdByBookingId.remove(bookingId);
+                if (occupancyIndex != null) {
+                    occupancyIndex.onBookingRemoved(room, booking);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendCancellationConfirmation(booking);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            metrics.increment(BookingMetrics.Counter.NOTIFICATION_FAILURES);
+        }
 
-        if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
+        return true;
+    }
+
+    public boolean cancelBooking(String bookingId, LocalDateTime occurrenceStart) {
+        long start = metrics.startTimer();
+        try {
+            return doCancelOccurrence(bookingId, occurrenceStart);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.CANCEL_BOOKING, start);
+        }
+    }
+
+    private boolean doCancelOccurrence(String bookingId, LocalDateTime occurrenceStart) {
+        if (bookingId == null || occurrenceStart == null) {
+            throw new IllegalArgumentException("Boknings-id och tillfälle kan inte vara null");
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        if (occurrenceStart.isBefore(now)) {
+            metrics.increment(BookingMetrics.Counter.STARTED_BOOKING_CANCELLATIONS);
             throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
         }
 
-        room.removeBooking(bookingId);
-        roomRepository.save(room);
+        Optional<Room> roomWithBooking = findRoomWithBooking(bookingId);
 
+        if (roomWithBooking.isEmpty()) {
+            return false;
+        }
+
+        Room room = roomWithBooking.get();
+        Booking occurrence;
+        ReentrantLock lock = lockFor(room.getId());
+        lock.lock();
         try {
-            notificationService.sendCancellationConfirmation(booking);
+            checkJournalOpen();
+            occurrence = room.cancelOccurrence(bookingId, occurrenceStart);
+            roomRepository.save(room);
+            publish(List.of(room));
+            record(BookingEvent.Type.OCCURRENCE_CANCELLED, now, occurrence);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendCancellationConfirmation(occurrence);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            metrics.increment(BookingMetrics.Counter.NOTIFICATION_FAILURES);
         }
 
         return true;
     }
-}
 
+    // Kontrolleras innan rummet ändras, så att en stängd journal inte lämnar en ändring utan händelse
+    private void checkJournalOpen() {
+        if (journal != null && journal.isClosed()) {
+            throw new IllegalStateException("Journalen är stängd");
+        }
+    }
+
+    /*
+     * Skrivs under rummets lås så att journalen har samma ordning som
+     * ändringarna i varje rum. Stängs journalen mellan kontrollen och
+     * skrivningen är rummet redan ändrat; då räknas felet i stället för att
+     * lämna resten av systemet, t.ex. index och bokningsregister, efter.
+     */
+    private void record(BookingEvent.Type type, LocalDateTime timestamp, Booking booking) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(type, timestamp, booking);
+        } catch (IllegalStateException e) {
+            metrics.increment(BookingMetrics.Counter.JOURNAL_FAILURES);
+        }
+    }
+
+    private void publish(Collection<Room> rooms) {
+        if (!publishing || rooms.isEmpty()) {
+            return;
+        }
+        List<Room> snapshotRooms = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            if (room.hasSnapshotStorage()) {
+                snapshotRooms.add(room);
+            } else {
+                staleRooms.put(room.getId(), room);
+            }
+        }
+        if (snapshotRooms.isEmpty()) {
+            return;
+        }
+        // Versionen läses inne i uppdateringen så att ett nytt försök alltid tar rummets senaste
+        published.updateAndGet(current -> {
+            RepositorySnapshot next = current;
+            for (Room room : snapshotRooms) {
+                next = next.with(room.snapshot());
+            }
+            return next;
+        });
+    }
+
+    // Rum som saknas i den publicerade versionen, t.ex. sparade direkt i repositoryt
+    private void noticeRooms(List<Room> rooms) {
+        if (!publishing) {
+            return;
+        }
+        RepositorySnapshot current = published.get();
+        for (Room room : rooms) {
+            if (!current.contains(room.getId())) {
+                staleRooms.putIfAbsent(room.getId(), room);
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(String roomId) {
+        return roomLocks[stripeOf(roomId)];
+    }
+
+    private static int stripeOf(String roomId) {
+        int hash = Objects.hashCode(roomId);
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    // Låsen tas alltid i stigande ordning så att samtidiga satser inte kan låsa varandra
+    private List<ReentrantLock> locksFor(Collection<String> roomIds) {
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        for (String roomId : roomIds) {
+            stripes.set(stripeOf(roomId));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(stripes.cardinality());
+        for (int stripe = stripes.nextSetBit(0); stripe >= 0; stripe = stripes.nextSetBit(stripe + 1)) {
+            locks.add(roomLocks[stripe]);
+        }
+        return locks;
+    }
+
+    private static boolean fitsInRoom(Room room, List<BookingRequest> sortedRequests) {
+        LocalDateTime latestEnd = null;
+        for (BookingRequest request : sortedRequests) {
+            if (latestEnd != null && !request.getStartTime().isAfter(latestEnd)) {
+                return false;
+            }
+            if (!room.isAvailable(request.getStartTime(), request.getEndTime())) {
+                return false;
+            }
+            if (latestEnd == null || request.getEndTime().isAfter(latestEnd)) {
+                latestEnd = request.getEndTime();
+            }
+        }
+        return true;
+    }
+
+    private void rollBack(Map<Room, List<Booking>> bookedByRoom, List<Room> saved) {
+        for (Map.Entry<Room, List<Booking>> entry : bookedByRoom.entrySet()) {
+            for (Booking booking : entry.getValue()) {
+                entry.getKey().removeBooking(booking.getId());
+            }
+        }
+        for (Room room : saved) {
+            roomRepository.save(room);
+        }
+    }
+
+    private void validateSlotSearch(LocalDateTime windowStart, LocalDateTime windowEnd, Duration duration, int limit) {
+        validateSearchInterval(windowStart, windowEnd);
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Längden måste vara noll eller mer");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Antal luckor måste vara minst 1");
+        }
+    }
+
+    /*
+     * Går igenom rummets bokningar i starttidsordning en gång. Gränserna är
+     * slutna precis som i Booking.overlaps, så en lucka börjar en nanosekund
+     * efter en bokning och slutar en nanosekund före nästa. Tider före nu
+     * räknas inte, eftersom de inte går att boka.
+     */
+    private List<FreeSlot> freeSlotsIn(Room room, LocalDateTime windowStart, LocalDateTime windowEnd,
+                                       Duration duration, int limit) {
+        LocalDateTime now = timeProvider.getCurrentTime();
+        LocalDateTime cursor = windowStart.isBefore(now) ? now : windowStart;
+        List<FreeSlot> slots = new ArrayList<>();
+        if (cursor.isAfter(windowEnd)) {
+            return slots;
+        }
+        for (Booking booking : room.getBookings(cursor, windowEnd)) {
+            if (booking.getStartTime().isAfter(cursor)) {
+                LocalDateTime gapEnd = booking.getStartTime().minusNanos(1);
+                if (Duration.between(cursor, gapEnd).compareTo(duration) >= 0) {
+                    slots.add(new FreeSlot(room.getId(), cursor, gapEnd));
+                    if (slots.size() == limit) {
+                        return slots;
+                    }
+                }
+            }
+            if (!booking.getEndTime().isBefore(cursor)) {
+                cursor = booking.getEndTime().plusNanos(1);
+                if (cursor.isAfter(windowEnd)) {
+                    return slots;
+                }
+            }
+        }
+        if (Duration.between(cursor, windowEnd).compareTo(duration) >= 0) {
+            slots.add(new FreeSlot(room.getId(), cursor, windowEnd));
+        }
+        return slots;
+    }
+
+    // Varje rums luckor är redan sorterade, så de vävs ihop med en prioritetskö över rummens nästa lucka
+    private static List<FreeSlot> mergeSlots(List<List<FreeSlot>> slotsByRoom, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, slotsByRoom.size()),
+                Comparator.comparing((int[] head) -> slotsByRoom.get(head[0]).get(head[1]).getStartTime())
+                        .thenComparingInt(head -> head[0]));
+        for (int room = 0; room < slotsByRoom.size(); room++) {
+            heads.add(new int[]{room, 0});
+        }
+        List<FreeSlot> merged = new ArrayList<>(limit);
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<FreeSlot> roomSlots = slotsByRoom.get(head[0]);
+            merged.add(roomSlots.get(head[1]));
+            if (++head[1] < roomSlots.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private void validateSearchInterval(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    /*
+     * Slår upp rummet i registret, som efter en omstart byggs upp en gång från
+     * repositoryt i stället för att varje miss letar igenom alla rum. Bara id
+     * som inte fanns då och inte gjorts via systemet, t.ex. bokningar som
+     * sparats direkt i repositoryt eller arkiverats, går vidare till
+     * repositoryts findByBookingId.
+     */
+    private Optional<Room> findRoomWithBooking(String bookingId) {
+        String roomId = roomIdByBookingId.get(bookingId);
+        if (roomId == null && !bookingIdsLoaded) {
+            loadBookingIds();
+            roomId = roomIdByBookingId.get(bookingId);
+        }
+        if (roomId != null) {
+            Optional<Room> indexed = roomRepository.findById(roomId)
+                    .filter(room -> room.hasBooking(bookingId) || room.hasArchivedBooking(bookingId));
+            if (indexed.isPresent()) {
+                return indexed;
+            }
+            roomIdByBookingId.remove(bookingId);
+        }
+        return roomRepository.findByBookingId(bookingId);
+    }
+
+    private void loadBookingIds() {
+        synchronized (roomIdByBookingId) {
+            if (bookingIdsLoaded) {
+                return;
+            }
+            for (Room room : roomRepository.findAll()) {
+                for (Booking booking : room.getBookings()) {
+                    roomIdByBookingId.putIfAbsent(booking.getId(), room.getId());
+                }
+                for (RecurringBooking recurring : room.getRecurringBookings()) {
+                    roomIdByBookingId.putIfAbsent(recurring.getId(), room.getId());
+                }
+            }
+            bookingIdsLoaded = true;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Tider som nanosekunder sedan epoken (UTC) i en {@code long}. Exakt för åren
+ * 1677 till 2262; tider utanför mättas till {@link Long#MIN_VALUE} eller
+ * {@link Long#MAX_VALUE}. Omvandlingen bevarar ordningen, så en överlappskontroll
+ * på nycklarna kan aldrig missa en verklig överlappning.
+ */
+final class BookingTimes {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long MAX_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+    private static final long MIN_SECONDS = -MAX_SECONDS;
+
+    private BookingTimes() {
+    }
+
+    static long toEpochNanos(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds > MAX_SECONDS) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds < MIN_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + time.getNano();
+    }
+
+    static boolean isExact(long epochNanos) {
+        return epochNanos != Long.MAX_VALUE && epochNanos != Long.MIN_VALUE;
+    }
+
+    static LocalDateTime fromEpochNanos(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Dekoratör som cachar rum från ett långsammare {@link RoomRepository}.
+ * Läsningar går via en begränsad LRU-cache. Med fördröjd skrivning slås
+ * upprepade {@code save} för samma rum ihop till en enda skrivning som görs
+ * vid {@link #flush()}, när för många rum väntar eller vid {@link #close()}.
+ * Ett väntande rum ligger kvar bland de väntande tills det faktiskt är
+ * skrivet, så att det aldrig läses gammalt från lagret under en flush, och
+ * rum som inte hann skrivas när lagret kastar ett fel skrivs vid nästa flush.
+ * Sökningar över alla rum eller på boknings-id läser lagret och lägger de
+ * cachade och väntande rummen ovanpå, utan att tvinga fram en flush.
+ */
+public class CachingRoomRepository implements RoomRepository, AutoCloseable {
+    private static final int DEFAULT_MAX_PENDING_WRITES = 1_000;
+
+    private final RoomRepository delegate;
+    private final boolean writeBehind;
+    private final int maxPendingWrites;
+    private final Map<String, Room> cache;
+    private final Map<String, Room> pendingWrites = new LinkedHashMap<>();
+    // Bara en flush åt gången, så att två samtidiga inte skriver samma rum
+    private final Object flushLock = new Object();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writes;
+
+    public CachingRoomRepository(RoomRepository delegate, int maxCachedRooms) {
+        this(delegate, maxCachedRooms, false, DEFAULT_MAX_PENDING_WRITES);
+    }
+
+    public CachingRoomRepository(RoomRepository delegate, int maxCachedRooms, boolean writeBehind, int maxPendingWrites) {
+        if (maxCachedRooms < 1 || maxPendingWrites < 1) {
+            throw new IllegalArgumentException("Cachestorlek och antal väntande skrivningar måste vara minst 1");
+        }
+        this.delegate = delegate;
+        this.writeBehind = writeBehind;
+        this.maxPendingWrites = maxPendingWrites;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Room> eldest) {
+                if (size() > maxCachedRooms) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        synchronized (this) {
+            Room cached = cache.get(id);
+            if (cached == null) {
+                // Ett rum kan ha trängts ut ur cachen innan det hunnit skrivas
+                cached = pendingWrites.get(id);
+                if (cached != null) {
+                    cache.put(id, cached);
+                }
+            }
+            if (cached != null) {
+                hits++;
+                return Optional.of(cached);
+            }
+            misses++;
+        }
+
+        Optional<Room> loaded = delegate.findById(id);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        synchronized (this) {
+            Room existing = cache.putIfAbsent(id, loaded.get());
+            return Optional.of(existing != null ? existing : loaded.get());
+        }
+    }
+
+    @Override
+    public List<Room> findAll() {
+        List<Room> rooms = delegate.findAll();
+        List<Room> result = new ArrayList<>(rooms.size());
+        synchronized (this) {
+            Set<String> seen = new HashSet<>();
+            for (Room room : rooms) {
+                result.add(current(room));
+                seen.add(room.getId());
+            }
+            // Nya rum som ännu inte skrivits finns inte i lagret
+            for (Room pending : pendingWrites.values()) {
+                if (seen.add(pending.getId())) {
+                    result.add(pending);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        synchronized (this) {
+            for (Room pending : pendingWrites.values()) {
+                if (pending.hasBooking(bookingId) || pending.hasArchivedBooking(bookingId)) {
+                    return Optional.of(pending);
+                }
+            }
+        }
+        // Lagret kan ha en äldre version av rummet, så svaret prövas mot den vi har
+        return delegate.findByBookingId(bookingId)
+                .map(room -> {
+                    synchronized (this) {
+                        return current(room);
+                    }
+                })
+                .filter(room -> room.hasBooking(bookingId) || room.hasArchivedBooking(bookingId));
+    }
+
+    @Override
+    public void save(Room room) {
+        if (!writeBehind) {
+            delegate.save(room);
+            synchronized (this) {
+                // Först när lagret har tagit emot rummet, så att cachen aldrig visar något osparat
+                cache.put(room.getId(), room);
+                writes++;
+            }
+            return;
+        }
+        boolean flushNow;
+        synchronized (this) {
+            cache.put(room.getId(), room);
+            pendingWrites.put(room.getId(), room);
+            flushNow = pendingWrites.size() >= maxPendingWrites;
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            List<Room> toWrite;
+            synchronized (this) {
+                if (pendingWrites.isEmpty()) {
+                    return;
+                }
+                toWrite = new ArrayList<>(pendingWrites.values());
+            }
+            for (Room room : toWrite) {
+                delegate.save(room);
+                synchronized (this) {
+                    // Ett rum som sparats igen under skrivningen ligger kvar till nästa flush
+                    pendingWrites.remove(room.getId(), room);
+                    writes++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    // Den väntande eller cachade versionen av ett rum som lästs från lagret
+    private Room current(Room stored) {
+        Room pending = pendingWrites.get(stored.getId());
+        if (pending != null) {
+            return pending;
+        }
+        Room cached = cache.get(stored.getId());
+        return cached != null ? cached : stored;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getWriteCount() {
+        return writes;
+    }
+
+    public synchronized int getPendingWriteCount() {
+        return pendingWrites.size();
+    }
+}
@@ -0,0 +1,376 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bokningar lagrade i parallella primitiva fält sorterade på starttid.
+ * Tider hålls som nanosekunder sedan epoken (se {@link BookingTimes}) och
+ * UUID-id som två {@code long}; andra id sparas som strängar. Ett extra fält
+ * håller största sluttid fram till och med varje position, så "finns någon
+ * överlappning" blir en binärsökning utan allokering. {@link Booking}-objekt
+ * skapas först när någon ber om dem.
+ * Insättning och borttagning flyttar elementen efter positionen, vilket är
+ * billigt så länge bokningar mest läggs till i tidsordning.
+ */
+final class CompactBookingStore implements BookingStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String roomId;
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private long[] maxEnds = new long[INITIAL_CAPACITY];
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    // Skapas först när ett id som inte är ett UUID läggs till
+    private String[] otherIds;
+    private int size;
+
+    // Id till starttid; positionen hittas sedan med binärsökning
+    private final UuidIndex uuidStarts = new UuidIndex();
+    private final Map<String, Long> otherStarts = new HashMap<>();
+
+    CompactBookingStore(String roomId) {
+        this.roomId = roomId;
+    }
+
+    @Override
+    public void add(Booking booking) {
+        long start = booking.getStartEpochNanos();
+        long end = booking.getEndEpochNanos();
+        if (!BookingTimes.isExact(start) || !BookingTimes.isExact(end)) {
+            throw new IllegalArgumentException("Tiden kan inte lagras kompakt: " + booking.getStartTime() + " - " + booking.getEndTime());
+        }
+        String id = booking.getId();
+        remove(id);
+
+        UUID uuid = parseUuid(id);
+        int position = insertionPoint(start, id);
+        ensureCapacity(size + 1);
+        shift(position, position + 1, size - position);
+        starts[position] = start;
+        ends[position] = end;
+        if (uuid != null) {
+            idHigh[position] = uuid.getMostSignificantBits();
+            idLow[position] = uuid.getLeastSignificantBits();
+            if (otherIds != null) {
+                otherIds[position] = null;
+            }
+            uuidStarts.put(idHigh[position], idLow[position], start);
+        } else {
+            if (otherIds == null) {
+                otherIds = new String[starts.length];
+            }
+            idHigh[position] = 0;
+            idLow[position] = 0;
+            otherIds[position] = id;
+            otherStarts.put(id, start);
+        }
+        size++;
+        updateMaxEnds(position);
+    }
+
+    @Override
+    public Booking remove(String bookingId) {
+        int position = indexOf(bookingId);
+        if (position < 0) {
+            return null;
+        }
+        Booking removed = materialize(position);
+        shift(position + 1, position, size - position - 1);
+        size--;
+        if (otherIds != null) {
+            otherIds[size] = null;
+        }
+        UUID uuid = parseUuid(bookingId);
+        if (uuid != null) {
+            uuidStarts.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } else {
+            otherStarts.remove(bookingId);
+        }
+        updateMaxEnds(position);
+        return removed;
+    }
+
+    @Override
+    public Booking get(String bookingId) {
+        int position = indexOf(bookingId);
+        return position < 0 ? null : materialize(position);
+    }
+
+    @Override
+    public boolean contains(String bookingId) {
+        return indexOf(bookingId) >= 0;
+    }
+
+    @Override
+    public boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+        return overlapsAny(BookingTimes.toEpochNanos(start), BookingTimes.toEpochNanos(end));
+    }
+
+    boolean overlapsAny(long start, long end) {
+        // Bland bokningar som börjar senast vid end räcker det att någon slutar vid start eller senare
+        int last = upperBound(end) - 1;
+        return last >= 0 && maxEnds[last] >= start;
+    }
+
+    @Override
+    public void forEachOverlapping(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        for (int i = firstReaching(startKey); i < size && starts[i] <= endKey; i++) {
+            if (ends[i] >= startKey) {
+                action.accept(materialize(i));
+            }
+        }
+    }
+
+    @Override
+    public List<Booking> toList() {
+        List<Booking> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(materialize(i));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Booking materialize(int position) {
+        return new Booking(idAt(position), roomId,
+                BookingTimes.fromEpochNanos(starts[position]), BookingTimes.fromEpochNanos(ends[position]));
+    }
+
+    private String idAt(int position) {
+        if (otherIds != null && otherIds[position] != null) {
+            return otherIds[position];
+        }
+        return new UUID(idHigh[position], idLow[position]).toString();
+    }
+
+    private int indexOf(String bookingId) {
+        UUID uuid = parseUuid(bookingId);
+        long start;
+        if (uuid != null) {
+            start = uuidStarts.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (start == UuidIndex.MISSING) {
+                return -1;
+            }
+        } else {
+            Long found = otherStarts.get(bookingId);
+            if (found == null) {
+                return -1;
+            }
+            start = found;
+        }
+        for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+            if (uuid != null
+                    ? (otherIds == null || otherIds[i] == null)
+                            && idHigh[i] == uuid.getMostSignificantBits() && idLow[i] == uuid.getLeastSignificantBits()
+                    : bookingId.equals(otherIds == null ? null : otherIds[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Samma ordning som intervallträdet: starttid och sedan id
+    private int insertionPoint(long start, String id) {
+        int position = lowerBound(start);
+        while (position < size && starts[position] == start && idAt(position).compareTo(id) < 0) {
+            position++;
+        }
+        return position;
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Första positionen där någon bokning hittills slutar vid key eller senare
+    private int firstReaching(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnds[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void updateMaxEnds(int from) {
+        long max = from == 0 ? Long.MIN_VALUE : maxEnds[from - 1];
+        for (int i = from; i < size; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        System.arraycopy(starts, from, starts, to, length);
+        System.arraycopy(ends, from, ends, to, length);
+        System.arraycopy(idHigh, from, idHigh, to, length);
+        System.arraycopy(idLow, from, idLow, to, length);
+        if (otherIds != null) {
+            System.arraycopy(otherIds, from, otherIds, to, length);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, starts.length * 2);
+        starts = Arrays.copyOf(starts, newCapacity);
+        ends = Arrays.copyOf(ends, newCapacity);
+        maxEnds = Arrays.copyOf(maxEnds, newCapacity);
+        idHigh = Arrays.copyOf(idHigh, newCapacity);
+        idLow = Arrays.copyOf(idLow, newCapacity);
+        if (otherIds != null) {
+            otherIds = Arrays.copyOf(otherIds, newCapacity);
+        }
+    }
+
+    // Bara id som skrivs tillbaka exakt likadant får lagras som två long
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hashtabell med öppen adressering från UUID (två long) till starttid,
+     * utan ett objekt per post.
+     */
+    private static final class UuidIndex {
+        static final long MISSING = Long.MIN_VALUE;
+
+        private long[] highs = new long[INITIAL_CAPACITY];
+        private long[] lows = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int count;
+
+        long get(long high, long low) {
+            int slot = find(high, low);
+            return used[slot] ? values[slot] : MISSING;
+        }
+
+        void put(long high, long low, long value) {
+            if ((count + 1) * 2 > used.length) {
+                grow();
+            }
+            int slot = find(high, low);
+            if (!used[slot]) {
+                used[slot] = true;
+                highs[slot] = high;
+                lows[slot] = low;
+                count++;
+            }
+            values[slot] = value;
+        }
+
+        void remove(long high, long low) {
+            int slot = find(high, low);
+            if (!used[slot]) {
+                return;
+            }
+            used[slot] = false;
+            count--;
+            // Flytta tillbaka efterföljande poster så att sökkedjorna förblir obrutna
+            int mask = used.length - 1;
+            int next = (slot + 1) & mask;
+            while (used[next]) {
+                int home = hash(highs[next], lows[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    highs[slot] = highs[next];
+                    lows[slot] = lows[next];
+                    values[slot] = values[next];
+                    used[slot] = true;
+                    used[next] = false;
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        private int find(long high, long low) {
+            int mask = used.length - 1;
+            int slot = hash(high, low) & mask;
+            while (used[slot] && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            int capacity = used.length * 2;
+            highs = new long[capacity];
+            lows = new long[capacity];
+            values = new long[capacity];
+            used = new boolean[capacity];
+            count = 0;
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldHighs[i], oldLows[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long high, long low) {
+            long h = high * 0x9E3779B97F4A7C15L ^ low;
+            h ^= h >>> 32;
+            return (int) (h ^ (h >>> 16));
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Beständigt {@link RoomRepository} som skriver ändringar som händelser i en
+ * logg som bara växer i slutet, via en minnesmappad {@link FileChannel}.
+ * {@link #save(Room)} lägger bara till poster för de bokningar som rummet
+ * har ändrat sedan det senast sparades här, så en enskild bokning kostar en
+ * liten sekventiell skrivning oavsett hur många bokningar rummet har. Första
+ * gången ett rum sparas jämförs det i sin helhet med det som redan är skrivet.
+ * Ett rum förutsätts sparas i ett enda sådant repository. Vid start läses
+ * senaste ögonblicksbild och loggarna efter den; när loggen vuxit sig stor
+ * skrivs en ny ögonblicksbild i bakgrunden och den gamla loggen tas bort.
+ */
+public class FileRoomRepository implements RoomRepository, AutoCloseable {
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+    private static final int REGION_SIZE = 1024 * 1024;
+    private static final String SNAPSHOT_FILE = "rooms.snapshot";
+    private static final String LOG_PREFIX = "rooms-";
+    private static final String LOG_SUFFIX = ".log";
+
+    private static final byte ROOM_CREATED = 1;
+    private static final byte BOOKING_ADDED = 2;
+    private static final byte BOOKING_REMOVED = 3;
+    private static final byte RECURRING_ADDED = 4;
+
+    private final Path directory;
+    private final long compactionThreshold;
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    // Det som senast skrivits till disk per rum, för att kunna räkna ut skillnaden vid save
+    private final Map<String, Map<String, Booking>> persisted = new HashMap<>();
+    private final Map<String, String> roomIdByBookingId = new HashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long generation;
+    private FileChannel logChannel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long logPosition;
+    private Future<?> runningCompaction;
+
+    public FileRoomRepository(Path directory) {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public FileRoomRepository(Path directory, long compactionThreshold) {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        try {
+            Files.createDirectories(directory);
+            generation = 0;
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshot)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+                generation = buffer.getLong();
+                replay(buffer);
+            }
+            TreeMap<Long, Path> logs = findLogs();
+            for (Map.Entry<Long, Path> log : logs.tailMap(generation, true).entrySet()) {
+                generation = log.getKey();
+                logPosition = replay(ByteBuffer.wrap(Files.readAllBytes(log.getValue())));
+            }
+            openLog(generation, logPosition);
+            // Inlästa rum motsvarar redan det skrivna, så nästa save behöver bara deras ändringar
+            for (Room room : rooms.values()) {
+                room.drainChangedBookings();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte öppna rumsloggen i " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public synchronized List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public synchronized Optional<Room> findByBookingId(String bookingId) {
+        String roomId = roomIdByBookingId.get(bookingId);
+        return roomId == null ? Optional.empty() : Optional.ofNullable(rooms.get(roomId));
+    }
+
+    @Override
+    public synchronized void save(Room room) {
+        Map<String, Booking> written = persisted.get(room.getId());
+        if (written == null) {
+            written = new HashMap<>();
+            persisted.put(room.getId(), written);
+            append(encodeRoom(room.getId(), room.getName(), room.getStorage()));
+        }
+        rooms.put(room.getId(), room);
+
+        Set<String> changed = room.drainChangedBookings();
+        if (changed == null) {
+            saveAll(room, written);
+        } else {
+            for (String bookingId : changed) {
+                // Arkiverade bokningar finns kvar som historik
+                write(room.getId(), written, bookingId, room.findBooking(bookingId));
+            }
+        }
+
+        if (logPosition >= compactionThreshold && (runningCompaction == null || runningCompaction.isDone())) {
+            compact();
+        }
+    }
+
+    // Rum som inte sparats här förut jämförs i sin helhet med det som redan är skrivet
+    private void saveAll(Room room, Map<String, Booking> written) {
+        Map<String, Booking> current = new HashMap<>();
+        for (Booking booking : room.getBookings()) {
+            current.put(booking.getId(), booking);
+        }
+        for (Booking booking : room.getArchivedBookings()) {
+            current.put(booking.getId(), booking);
+        }
+        for (RecurringBooking recurring : room.getRecurringBookings()) {
+            current.put(recurring.getId(), recurring);
+        }
+        for (String bookingId : new ArrayList<>(written.keySet())) {
+            if (!current.containsKey(bookingId)) {
+                write(room.getId(), written, bookingId, null);
+            }
+        }
+        for (Booking booking : current.values()) {
+            write(room.getId(), written, booking.getId(), booking);
+        }
+    }
+
+    // Skriver bokningens nuvarande värde, eller att den är borta, om det skiljer sig från det skrivna
+    private void write(String roomId, Map<String, Booking> written, String bookingId, Booking now) {
+        Booking before = written.get(bookingId);
+        if (before != null && now != null && sameBooking(now, before)) {
+            return;
+        }
+        if (before != null) {
+            append(encodeRemoval(roomId, bookingId));
+            written.remove(bookingId);
+            roomIdByBookingId.remove(bookingId);
+        }
+        if (now != null) {
+            append(encodeBooking(now));
+            written.put(bookingId, now);
+            roomIdByBookingId.put(bookingId, roomId);
+        }
+    }
+
+    // Tvingar ut skrivna poster till disken
+    public synchronized void flush() {
+        region.force();
+    }
+
+    @Override
+    public void close() {
+        Future<?> compaction;
+        synchronized (this) {
+            compaction = runningCompaction;
+        }
+        try {
+            if (compaction != null) {
+                compaction.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Komprimering av rumsloggen misslyckades", e);
+        } finally {
+            compactor.shutdown();
+        }
+        synchronized (this) {
+            try {
+                region.force();
+                logChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void compact() {
+        List<byte[]> records = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            records.add(encodeRoom(room.getId(), room.getName(), room.getStorage()));
+            for (Booking booking : persisted.get(room.getId()).values()) {
+                records.add(encodeBooking(booking));
+            }
+        }
+        long compactedGeneration = generation + 1;
+        Path oldLog = logPath(generation);
+        try {
+            region.force();
+            logChannel.close();
+            openLog(compactedGeneration, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Ögonblicksbilden skrivs utanför låset; tills den är klar läses den gamla loggen vid start
+        runningCompaction = compactor.submit(() -> {
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                out.write(ByteBuffer.allocate(Long.BYTES).putLong(compactedGeneration).array());
+                for (byte[] record : records) {
+                    out.write(frame(record));
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(oldLog);
+            return null;
+        });
+    }
+
+    private void openLog(long logGeneration, long position) throws IOException {
+        generation = logGeneration;
+        logChannel = FileChannel.open(logPath(logGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Kapa en eventuell avbruten svans så att den inte läses som poster efter nya skrivningar
+        logChannel.truncate(position);
+        logPosition = position;
+        region = null;
+        mapRegion(REGION_SIZE);
+    }
+
+    private void mapRegion(int minimumSize) throws IOException {
+        if (region != null) {
+            region.force();
+        }
+        regionStart = logPosition;
+        region = logChannel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, minimumSize));
+    }
+
+    private void append(byte[] record) {
+        byte[] framed = frame(record);
+        try {
+            if (logPosition - regionStart + framed.length > region.capacity()) {
+                mapRegion(framed.length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte skriva till rumsloggen", e);
+        }
+        region.position((int) (logPosition - regionStart));
+        region.put(framed);
+        logPosition += framed.length;
+    }
+
+    private TreeMap<Long, Path> findLogs() throws IOException {
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX)) {
+                    logs.put(Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())), file);
+                }
+            });
+        }
+        return logs;
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(LOG_PREFIX + logGeneration + LOG_SUFFIX);
+    }
+
+    // Läser poster tills nollfylld eller avbruten svans; returnerar positionen efter sista hela posten
+    private long replay(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+            int recordStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(recordStart);
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(record);
+            if (checksum(record) != checksum) {
+                buffer.position(recordStart);
+                break;
+            }
+            apply(ByteBuffer.wrap(record));
+        }
+        return buffer.position() - start;
+    }
+
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        String roomId = readString(record);
+        switch (type) {
+            case ROOM_CREATED -> {
+                String name = readString(record);
+                // Poster från före lagringssättet skrevs saknar det och fick alltid standardlagringen
+                BookingStorage storage = record.hasRemaining()
+                        ? BookingStorage.values()[record.get()] : BookingStorage.TREE;
+                rooms.putIfAbsent(roomId, new Room(roomId, name, storage));
+                persisted.putIfAbsent(roomId, new HashMap<>());
+            }
+            case BOOKING_ADDED -> {
+                String bookingId = readString(record);
+                Booking booking = new Booking(bookingId, roomId, readTime(record), readTime(record));
+                restore(roomId, booking);
+            }
+            case RECURRING_ADDED -> {
+                String bookingId = readString(record);
+                LocalDateTime firstStart = readTime(record);
+                Duration duration = Duration.ofSeconds(record.getLong(), record.getInt());
+                Recurrence.Frequency frequency = Recurrence.Frequency.values()[record.get()];
+                int interval = record.getInt();
+                LocalDateTime until = record.get() == 1 ? readTime(record) : null;
+                int count = record.getInt();
+                Set<LocalDateTime> cancelled = new HashSet<>();
+                for (int i = record.getInt(); i > 0; i--) {
+                    cancelled.add(readTime(record));
+                }
+                restore(roomId, new RecurringBooking(bookingId, roomId, firstStart, duration,
+                        new Recurrence(frequency, interval, until, count), cancelled));
+            }
+            case BOOKING_REMOVED -> {
+                String bookingId = readString(record);
+                rooms.get(roomId).removeBooking(bookingId);
+                persisted.get(roomId).remove(bookingId);
+                roomIdByBookingId.remove(bookingId);
+            }
+            default -> throw new IllegalStateException("Okänd posttyp i rumsloggen: " + type);
+        }
+    }
+
+    private void restore(String roomId, Booking booking) {
+        rooms.get(roomId).addBooking(booking);
+        persisted.get(roomId).put(booking.getId(), booking);
+        roomIdByBookingId.put(booking.getId(), roomId);
+    }
+
+    // Kompakt lagrade rum skapar nya bokningsobjekt vid varje läsning, så vanliga bokningar jämförs på värde
+    private static boolean sameBooking(Booking now, Booking written) {
+        if (now == written) {
+            return true;
+        }
+        return !(now instanceof RecurringBooking) && !(written instanceof RecurringBooking)
+                && now.getStartTime().equals(written.getStartTime()) && now.getEndTime().equals(written.getEndTime());
+    }
+
+    private static byte[] encodeRoom(String roomId, String name, BookingStorage storage) {
+        byte[] id = roomId.getBytes(StandardCharsets.UTF_8);
+        byte[] roomName = name.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 2 * Integer.BYTES + id.length + roomName.length + 1)
+                .put(ROOM_CREATED).putInt(id.length).put(id).putInt(roomName.length).put(roomName)
+                .put((byte) storage.ordinal())
+                .array();
+    }
+
+    private static byte[] encodeRemoval(String roomId, String bookingId) {
+        byte[] room = roomId.getBytes(StandardCharsets.UTF_8);
+        byte[] booking = bookingId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 2 * Integer.BYTES + room.length + booking.length)
+                .put(BOOKING_REMOVED).putInt(room.length).put(room).putInt(booking.length).put(booking)
+                .array();
+    }
+
+    private static byte[] encodeBooking(Booking booking) {
+        byte[] room = booking.getRoomId().getBytes(StandardCharsets.UTF_8);
+        byte[] id = booking.getId().getBytes(StandardCharsets.UTF_8);
+        int timeBytes = Long.BYTES + Integer.BYTES;
+        if (!(booking instanceof RecurringBooking recurring)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 * Integer.BYTES + room.length + id.length + 2 * timeBytes)
+                    .put(BOOKING_ADDED).putInt(room.length).put(room).putInt(id.length).put(id);
+            writeTime(buffer, booking.getStartTime());
+            writeTime(buffer, booking.getEndTime());
+            return buffer.array();
+        }
+        Recurrence recurrence = recurring.getRecurrence();
+        Set<LocalDateTime> cancelled = recurring.getCancelledOccurrences();
+        int size = 1 + 2 * Integer.BYTES + room.length + id.length + timeBytes
+                + timeBytes + 1 + Integer.BYTES + 1 + timeBytes + Integer.BYTES
+                + Integer.BYTES + cancelled.size() * timeBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+                .put(RECURRING_ADDED).putInt(room.length).put(room).putInt(id.length).put(id);
+        writeTime(buffer, recurring.getStartTime());
+        buffer.putLong(recurring.getDuration().getSeconds()).putInt(recurring.getDuration().getNano());
+        buffer.put((byte) recurrence.getFrequency().ordinal()).putInt(recurrence.getInterval());
+        if (recurrence.getUntil() != null) {
+            buffer.put((byte) 1);
+            writeTime(buffer, recurrence.getUntil());
+        } else {
+            buffer.put((byte) 0);
+        }
+        buffer.putInt(recurrence.getCount()).putInt(cancelled.size());
+        for (LocalDateTime occurrence : cancelled) {
+            writeTime(buffer, occurrence);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] frame(byte[] record) {
+        return ByteBuffer.allocate(2 * Integer.BYTES + record.length)
+                .putInt(record.length).putInt(checksum(record)).put(record)
+                .array();
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static void writeTime(ByteBuffer buffer, LocalDateTime time) {
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
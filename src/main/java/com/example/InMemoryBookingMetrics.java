@@ -0,0 +1,44 @@
+package com.example;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BookingMetrics} som håller ett {@link LatencyHistogram} per tidtagare
+ * och en räknare per händelse i minnet, för test och enkel export.
+ */
+public class InMemoryBookingMetrics implements BookingMetrics {
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Timer.values().length];
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    public InMemoryBookingMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stopTimer(Timer timer, long startNanos) {
+        histograms[timer.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public LatencyHistogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+}
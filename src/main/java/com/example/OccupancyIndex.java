@@ -0,0 +1,219 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Beläggningsindex över alla rum: tiden delas in i hinkar (standard 15 minuter)
+ * och varje rum har en bitmängd med de hinkar där rummet har någon bokning,
+ * så en bokning markeras med ett enda {@link BitSet#set(int, int)}. En
+ * sökning efter lediga rum tittar på några ord per rum; endast rum som är
+ * bokade i kanthinkarna kontrolleras exakt mot rummet. Indexet känner bara
+ * till rum som fanns när det byggdes eller som lagts till med
+ * {@link #addRoom}, t.ex. via {@link BookingSystem#addRoom}.
+ */
+public class OccupancyIndex {
+    private static final Duration DEFAULT_BUCKET_SIZE = Duration.ofMinutes(15);
+
+    private final long bucketSeconds;
+    private final List<Room> roomsByOrdinal = new ArrayList<>();
+    private final List<BitSet> bucketsByOrdinal = new ArrayList<>();
+    private final Map<String, Integer> ordinalByRoomId = new HashMap<>();
+    // Hinken som bit 0 står för; sätts av första bokningen och flyttas bakåt om en tidigare dyker upp
+    private long firstBucket;
+    private boolean hasFirstBucket;
+    // Återkommande bokningar delas inte upp i hinkar; de rummen kontrolleras alltid exakt
+    private final BitSet roomsWithRecurring = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OccupancyIndex(RoomRepository roomRepository) {
+        this(roomRepository, DEFAULT_BUCKET_SIZE);
+    }
+
+    public OccupancyIndex(RoomRepository roomRepository, Duration bucketSize) {
+        if (bucketSize.getSeconds() < 1) {
+            throw new IllegalArgumentException("Hinkstorleken måste vara minst en sekund");
+        }
+        this.bucketSeconds = bucketSize.getSeconds();
+        for (Room room : roomRepository.findAll()) {
+            indexRoom(room);
+        }
+    }
+
+    public void addRoom(Room room) {
+        lock.writeLock().lock();
+        try {
+            indexRoom(room);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBookingAdded(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = indexRoom(room);
+            if (booking instanceof RecurringBooking) {
+                roomsWithRecurring.set(ordinal);
+            } else {
+                mark(ordinal, booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Anropas efter att bokningen tagits bort ur rummet
+    public void onBookingRemoved(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = indexRoom(room);
+            if (booking instanceof RecurringBooking) {
+                if (room.getRecurringBookings().isEmpty()) {
+                    roomsWithRecurring.clear(ordinal);
+                }
+                return;
+            }
+            unmark(room, ordinal, booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Anropas efter Room.archiveBefore med de bokningar som arkiverades, som inte längre kan krocka
+    public void onBookingsArchived(Room room, List<Booking> archived) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = indexRoom(room);
+            for (Booking booking : archived) {
+                unmark(room, ordinal, booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Room> findAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        lock.readLock().lock();
+        try {
+            long first = bucketOf(startTime);
+            long last = bucketOf(endTime);
+            // En bokning i en hink som ligger helt inom intervallet överlappar alltid
+            long firstInside = bucketStart(first).isBefore(startTime) ? first + 1 : first;
+            long lastInside = bucketStart(last + 1).isAfter(endTime) ? last - 1 : last;
+            int from = bitOf(first);
+            int to = bitOf(last);
+            int insideFrom = bitOf(firstInside);
+            int insideTo = bitOf(lastInside);
+
+            List<Room> available = new ArrayList<>();
+            for (int ordinal = 0; ordinal < roomsByOrdinal.size(); ordinal++) {
+                Room room = roomsByOrdinal.get(ordinal);
+                BitSet buckets = bucketsByOrdinal.get(ordinal);
+                int hit = to < 0 ? -1 : buckets.nextSetBit(Math.max(from, 0));
+                if (hit < 0 || hit > to) {
+                    if (!roomsWithRecurring.get(ordinal) || room.isAvailable(startTime, endTime)) {
+                        available.add(room);
+                    }
+                    continue;
+                }
+                int insideHit = insideTo < insideFrom || insideTo < 0 ? -1 : buckets.nextSetBit(Math.max(insideFrom, 0));
+                boolean busy = insideHit >= 0 && insideHit <= insideTo;
+                if (!busy && room.isAvailable(startTime, endTime)) {
+                    available.add(room);
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ett rum som är nytt för indexet tas med alla bokningar det redan har
+    private int indexRoom(Room room) {
+        Integer known = ordinalByRoomId.get(room.getId());
+        if (known != null) {
+            roomsByOrdinal.set(known, room);
+            return known;
+        }
+        int ordinal = roomsByOrdinal.size();
+        roomsByOrdinal.add(room);
+        bucketsByOrdinal.add(new BitSet());
+        ordinalByRoomId.put(room.getId(), ordinal);
+        for (Booking booking : room.getBookings()) {
+            mark(ordinal, booking);
+        }
+        if (!room.getRecurringBookings().isEmpty()) {
+            roomsWithRecurring.set(ordinal);
+        }
+        return ordinal;
+    }
+
+    private void mark(int ordinal, Booking booking) {
+        long start = bucketOf(booking.getStartTime());
+        if (!hasFirstBucket) {
+            firstBucket = start;
+            hasFirstBucket = true;
+        } else if (start < firstBucket) {
+            moveFirstBucket(start);
+        }
+        long end = bucketOf(booking.getEndTime());
+        if (end - firstBucket >= Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Bokningen ligger för långt fram för beläggningsindexet");
+        }
+        bucketsByOrdinal.get(ordinal).set(bitOf(start), bitOf(end) + 1);
+    }
+
+    // Rensar bokningens hinkar och markerar om rummets övriga bokningar i dem
+    private void unmark(Room room, int ordinal, Booking booking) {
+        if (!hasFirstBucket) {
+            return;
+        }
+        long first = bucketOf(booking.getStartTime());
+        long last = bucketOf(booking.getEndTime());
+        bucketsByOrdinal.get(ordinal).clear(Math.max(bitOf(first), 0), Math.max(bitOf(last) + 1, 0));
+        for (Booking other : room.getBookings(bucketStart(first), bucketStart(last + 1).minusNanos(1))) {
+            // Tillfällen ur serier markeras aldrig, de täcks av roomsWithRecurring
+            if (!(room.getBooking(other.getId()) instanceof RecurringBooking)) {
+                mark(ordinal, other);
+            }
+        }
+    }
+
+    // Skjuter alla rums bitar framåt så att en bokning före den första hinken får plats
+    private void moveFirstBucket(long bucket) {
+        int shift = Math.toIntExact(firstBucket - bucket);
+        for (int ordinal = 0; ordinal < bucketsByOrdinal.size(); ordinal++) {
+            BitSet old = bucketsByOrdinal.get(ordinal);
+            BitSet moved = new BitSet(old.length() + shift);
+            for (int bit = old.nextSetBit(0); bit >= 0; bit = old.nextSetBit(bit + 1)) {
+                int end = old.nextClearBit(bit);
+                moved.set(bit + shift, end + shift);
+                bit = end;
+            }
+            bucketsByOrdinal.set(ordinal, moved);
+        }
+        firstBucket = bucket;
+    }
+
+    // Bitens nummer i rummens bitmängder; -1 för hinkar före den första
+    private int bitOf(long bucket) {
+        return (int) Math.max(Math.min(bucket - firstBucket, Integer.MAX_VALUE - 1), -1);
+    }
+
+    private long bucketOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    private LocalDateTime bucketStart(long bucket) {
+        return LocalDateTime.ofEpochSecond(bucket * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Oföränderlig motsvarighet till {@link BookingIntervalTree}: samma ordning,
+ * samma största sluttid per delträd och samma slutna överlappsregler, men
+ * varje ändring kopierar bara vägen ned till bokningen och ger ett nytt träd.
+ * Gamla versioner kan därför läsas samtidigt utan lås.
+ */
+final class PersistentBookingTree {
+
+    private static final class Node {
+        final Booking booking;
+        final int priority;
+        final Node left;
+        final Node right;
+        final long maxEnd;
+
+        Node(Booking booking, int priority, Node left, Node right) {
+            this.booking = booking;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            long max = booking.getEndEpochNanos();
+            if (left != null) {
+                max = Math.max(max, left.maxEnd);
+            }
+            if (right != null) {
+                max = Math.max(max, right.maxEnd);
+            }
+            this.maxEnd = max;
+        }
+
+        Node withLeft(Node newLeft) {
+            return new Node(booking, priority, newLeft, right);
+        }
+
+        Node withRight(Node newRight) {
+            return new Node(booking, priority, left, newRight);
+        }
+    }
+
+    static final PersistentBookingTree EMPTY = new PersistentBookingTree(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentBookingTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // Bokningen får inte redan finnas i trädet; ersättning görs med without följt av with
+    PersistentBookingTree with(Booking booking) {
+        return new PersistentBookingTree(insert(root, booking, priorityOf(booking)), size + 1);
+    }
+
+    PersistentBookingTree without(Booking booking) {
+        return new PersistentBookingTree(delete(root, booking), size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        if (!BookingTimes.isExact(startKey) || !BookingTimes.isExact(endKey)) {
+            for (Booking booking : toList()) {
+                if (booking.overlaps(start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Node node = root;
+        while (node != null) {
+            if (node.booking.overlaps(startKey, endKey)) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd >= startKey) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    void forEachOverlapping(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        long endKey = BookingTimes.toEpochNanos(end);
+        if (BookingTimes.isExact(startKey) && BookingTimes.isExact(endKey)) {
+            collect(root, startKey, endKey, action);
+            return;
+        }
+        for (Booking booking : toList()) {
+            if (booking.overlaps(start, end)) {
+                action.accept(booking);
+            }
+        }
+    }
+
+    List<Booking> toList() {
+        List<Booking> result = new ArrayList<>(size);
+        inOrder(root, result);
+        return result;
+    }
+
+    private static void collect(Node node, long startKey, long endKey, Consumer<Booking> action) {
+        if (node == null || node.maxEnd < startKey) {
+            return;
+        }
+        collect(node.left, startKey, endKey, action);
+        if (node.booking.getStartEpochNanos() > endKey) {
+            return;
+        }
+        if (node.booking.getEndEpochNanos() >= startKey) {
+            action.accept(node.booking);
+        }
+        collect(node.right, startKey, endKey, action);
+    }
+
+    private static void inOrder(Node node, List<Booking> result) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, result);
+        result.add(node.booking);
+        inOrder(node.right, result);
+    }
+
+    private static Node insert(Node node, Booking booking, int priority) {
+        if (node == null) {
+            return new Node(booking, priority, null, null);
+        }
+        if (compare(booking, node.booking) < 0) {
+            Node left = insert(node.left, booking, priority);
+            if (left.priority > node.priority) {
+                return left.withRight(node.withLeft(left.right));
+            }
+            return node.withLeft(left);
+        }
+        Node right = insert(node.right, booking, priority);
+        if (right.priority > node.priority) {
+            return right.withLeft(node.withRight(right.left));
+        }
+        return node.withRight(right);
+    }
+
+    private static Node delete(Node node, Booking booking) {
+        int cmp = compare(booking, node.booking);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        return cmp < 0 ? node.withLeft(delete(node.left, booking)) : node.withRight(delete(node.right, booking));
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.withRight(merge(left.right, right));
+        }
+        return right.withLeft(merge(left, right.left));
+    }
+
+    private static int compare(Booking a, Booking b) {
+        int cmp = Long.compare(a.getStartEpochNanos(), b.getStartEpochNanos());
+        if (cmp == 0) {
+            cmp = a.getStartTime().compareTo(b.getStartTime());
+        }
+        return cmp != 0 ? cmp : a.getId().compareTo(b.getId());
+    }
+
+    private static int priorityOf(Booking booking) {
+        int h = booking.getId().hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+}
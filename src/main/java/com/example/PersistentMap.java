@@ -0,0 +1,154 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Oföränderlig sorterad map (treap med stigkopiering). {@link #with} och
+ * {@link #without} lämnar originalet orört och returnerar en ny version som
+ * delar alla noder utom de O(log n) på vägen till nyckeln, så en version kan
+ * läsas utan lås medan nästa byggs. Prioriteten räknas fram ur nyckelns hash
+ * så att samma innehåll alltid ger samma träd.
+ */
+final class PersistentMap<K extends Comparable<? super K>, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int priority;
+        final Node<K, V> left;
+        final Node<K, V> right;
+
+        Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+        }
+
+        Node<K, V> withLeft(Node<K, V> newLeft) {
+            return new Node<>(key, value, priority, newLeft, right);
+        }
+
+        Node<K, V> withRight(Node<K, V> newRight) {
+            return new Node<>(key, value, priority, left, newRight);
+        }
+    }
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    PersistentMap<K, V> with(K key, V value) {
+        boolean existed = containsKey(key);
+        return new PersistentMap<>(insert(root, key, value, priorityOf(key)), existed ? size : size + 1);
+    }
+
+    PersistentMap<K, V> without(K key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        return new PersistentMap<>(delete(root, key), size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Värdena i nyckelordning
+    List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        collect(root, result);
+        return result;
+    }
+
+    private static <K, V> void collect(Node<K, V> node, List<V> result) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, result);
+        result.add(node.value);
+        collect(node.right, result);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> insert(Node<K, V> node, K key, V value, int priority) {
+        if (node == null) {
+            return new Node<>(key, value, priority, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            return new Node<>(key, value, node.priority, node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<K, V> left = insert(node.left, key, value, priority);
+            if (left.priority > node.priority) {
+                // Rotera höger: vänster barn blir ny rot
+                return left.withRight(node.withLeft(left.right));
+            }
+            return node.withLeft(left);
+        }
+        Node<K, V> right = insert(node.right, key, value, priority);
+        if (right.priority > node.priority) {
+            return right.withLeft(node.withRight(right.left));
+        }
+        return node.withRight(right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> delete(Node<K, V> node, K key) {
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        return cmp < 0 ? node.withLeft(delete(node.left, key)) : node.withRight(delete(node.right, key));
+    }
+
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.withRight(merge(left.right, right));
+        }
+        return right.withLeft(merge(left, right.left));
+    }
+
+    private static int priorityOf(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+}
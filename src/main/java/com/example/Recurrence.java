@@ -0,0 +1,77 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public class Recurrence {
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS),
+        WEEKLY(ChronoUnit.WEEKS),
+        MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDateTime until;
+    private final int count;
+
+    public Recurrence(Frequency frequency, int interval, LocalDateTime until, int count) {
+        if (frequency == null || interval < 1) {
+            throw new IllegalArgumentException("Återkommande bokning kräver frekvens och ett intervall på minst 1");
+        }
+        if (until == null && count < 1) {
+            throw new IllegalArgumentException("Återkommande bokning kräver slutdatum eller antal tillfällen");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+        this.count = count;
+    }
+
+    public static Recurrence until(Frequency frequency, LocalDateTime until) {
+        return new Recurrence(frequency, 1, until, 0);
+    }
+
+    public static Recurrence times(Frequency frequency, int count) {
+        return new Recurrence(frequency, 1, null, count);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    LocalDateTime occurrenceStart(LocalDateTime firstStart, long index) {
+        return firstStart.plus(index * interval, frequency.unit);
+    }
+
+    boolean hasOccurrence(LocalDateTime firstStart, long index) {
+        if (index < 0 || (count > 0 && index >= count)) {
+            return false;
+        }
+        return until == null || !occurrenceStart(firstStart, index).isAfter(until);
+    }
+
+    // Ett index vars tillfälle börjar senast vid time, att stega framåt ifrån
+    long indexNotAfter(LocalDateTime firstStart, LocalDateTime time) {
+        long units = frequency.unit.between(firstStart, time);
+        return Math.max(0, units / interval - 1);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * En återkommande bokning som lagras som ett mönster i stället för ett objekt
+ * per tillfälle. Start- och sluttid är seriens första tillfälle; tillfällena
+ * räknas fram först när ett tidsintervall frågas efter, och bara de som
+ * ligger i intervallet. Varje tillfälle överlappar med samma slutna gränser
+ * som {@link Booking#overlaps}.
+ */
+public class RecurringBooking extends Booking {
+    private final Duration duration;
+    private final Recurrence recurrence;
+    private final Set<LocalDateTime> cancelledOccurrences;
+
+    public RecurringBooking(String id, String roomId, LocalDateTime firstStart, Duration duration, Recurrence recurrence) {
+        this(id, roomId, firstStart, duration, recurrence, Set.of());
+    }
+
+    public RecurringBooking(String id, String roomId, LocalDateTime firstStart, Duration duration,
+                            Recurrence recurrence, Set<LocalDateTime> cancelledOccurrences) {
+        super(id, roomId, firstStart, firstStart.plus(duration));
+        this.duration = duration;
+        this.recurrence = recurrence;
+        this.cancelledOccurrences = Set.copyOf(cancelledOccurrences);
+    }
+
+    @Override
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime firstStart = getStartTime();
+        for (long index = recurrence.indexNotAfter(firstStart, start.minus(duration));
+             recurrence.hasOccurrence(firstStart, index); index++) {
+            LocalDateTime occurrenceStart = recurrence.occurrenceStart(firstStart, index);
+            if (occurrenceStart.isAfter(end)) {
+                return false;
+            }
+            if (!occurrenceStart.plus(duration).isBefore(start) && !cancelledOccurrences.contains(occurrenceStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Booking> getOccurrences(LocalDateTime start, LocalDateTime end) {
+        List<Booking> occurrences = new ArrayList<>();
+        LocalDateTime firstStart = getStartTime();
+        for (long index = recurrence.indexNotAfter(firstStart, start.minus(duration));
+             recurrence.hasOccurrence(firstStart, index); index++) {
+            LocalDateTime occurrenceStart = recurrence.occurrenceStart(firstStart, index);
+            if (occurrenceStart.isAfter(end)) {
+                break;
+            }
+            LocalDateTime occurrenceEnd = occurrenceStart.plus(duration);
+            if (!occurrenceEnd.isBefore(start) && !cancelledOccurrences.contains(occurrenceStart)) {
+                occurrences.add(new Booking(getId(), getRoomId(), occurrenceStart, occurrenceEnd));
+            }
+        }
+        return occurrences;
+    }
+
+    public boolean isOccurrence(LocalDateTime occurrenceStart) {
+        if (cancelledOccurrences.contains(occurrenceStart)) {
+            return false;
+        }
+        LocalDateTime firstStart = getStartTime();
+        for (long index = recurrence.indexNotAfter(firstStart, occurrenceStart);
+             recurrence.hasOccurrence(firstStart, index); index++) {
+            int cmp = recurrence.occurrenceStart(firstStart, index).compareTo(occurrenceStart);
+            if (cmp >= 0) {
+                return cmp == 0;
+            }
+        }
+        return false;
+    }
+
+    public RecurringBooking withoutOccurrence(LocalDateTime occurrenceStart) {
+        if (!isOccurrence(occurrenceStart)) {
+            throw new IllegalArgumentException("Tillfället finns inte i serien");
+        }
+        Set<LocalDateTime> cancelled = new HashSet<>(cancelledOccurrences);
+        cancelled.add(occurrenceStart);
+        return new RecurringBooking(getId(), getRoomId(), getStartTime(), duration, recurrence, cancelled);
+    }
+
+    /*
+     * Serien utan de tillfällen som börjar vid time eller senare. Ger null om
+     * inget tillfälle börjar före time, och samma serie om inget börjar efter.
+     */
+    public RecurringBooking endingBefore(LocalDateTime time) {
+        LocalDateTime firstStart = getStartTime();
+        LocalDateTime lastKept = null;
+        long index = recurrence.indexNotAfter(firstStart, time);
+        for (; recurrence.hasOccurrence(firstStart, index); index++) {
+            LocalDateTime occurrenceStart = recurrence.occurrenceStart(firstStart, index);
+            if (!occurrenceStart.isBefore(time)) {
+                break;
+            }
+            lastKept = occurrenceStart;
+        }
+        if (!recurrence.hasOccurrence(firstStart, index)) {
+            return this;
+        }
+        if (lastKept == null) {
+            return null;
+        }
+        Set<LocalDateTime> cancelled = new HashSet<>();
+        for (LocalDateTime occurrenceStart : cancelledOccurrences) {
+            if (!occurrenceStart.isAfter(lastKept)) {
+                cancelled.add(occurrenceStart);
+            }
+        }
+        Recurrence shortened = new Recurrence(recurrence.getFrequency(), recurrence.getInterval(), lastKept,
+                recurrence.getCount());
+        return new RecurringBooking(getId(), getRoomId(), firstStart, duration, shortened, cancelled);
+    }
+
+    // Sluttiden för seriens sista möjliga tillfälle
+    public LocalDateTime getLastEndTime() {
+        LocalDateTime lastStart = recurrence.getUntil();
+        if (recurrence.getCount() > 0) {
+            LocalDateTime lastCounted = recurrence.occurrenceStart(getStartTime(), recurrence.getCount() - 1);
+            if (lastStart == null || lastCounted.isBefore(lastStart)) {
+                lastStart = lastCounted;
+            }
+        }
+        return lastStart.plus(duration);
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public Set<LocalDateTime> getCancelledOccurrences() {
+        return cancelledOccurrences;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Alla rum som de såg ut när versionen publicerades. Versionen ändras aldrig,
+ * så den kan läsas från hur många trådar som helst utan lås. En bokning över
+ * flera rum syns antingen i alla rummen eller i inget bara när alla rummen
+ * använder {@link BookingStorage#SNAPSHOT}; andra rum kopieras var för sig
+ * när versionen hämtas och kan då visa en del av en samtidig sats.
+ */
+public final class RepositorySnapshot {
+    static final RepositorySnapshot EMPTY = new RepositorySnapshot(PersistentMap.empty());
+
+    private final PersistentMap<String, RoomSnapshot> rooms;
+
+    private RepositorySnapshot(PersistentMap<String, RoomSnapshot> rooms) {
+        this.rooms = rooms;
+    }
+
+    // Rummen sorterade på id
+    public List<RoomSnapshot> getRooms() {
+        return rooms.values();
+    }
+
+    public Optional<RoomSnapshot> getRoom(String roomId) {
+        return Optional.ofNullable(rooms.get(roomId));
+    }
+
+    public List<RoomSnapshot> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        List<RoomSnapshot> available = new ArrayList<>();
+        for (RoomSnapshot room : rooms.values()) {
+            if (room.isAvailable(startTime, endTime)) {
+                available.add(room);
+            }
+        }
+        return available;
+    }
+
+    boolean contains(String roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    RepositorySnapshot with(RoomSnapshot room) {
+        return new RepositorySnapshot(rooms.with(room.getId(), room));
+    }
+}
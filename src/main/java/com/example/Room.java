@@ -1,43 +1,344 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 public class Room {
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    private final BookingStorage storage;
+    private final SegmentedBookingStore bookings;
+    private final Map<String, RecurringBooking> recurringById = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Senaste publicerade version när rummet använder BookingStorage.SNAPSHOT, annars null
+    private volatile RoomSnapshot snapshot;
+    // Boknings-id som ändrats sedan förra drainChangedBookings; null tills någon har börjat hämta dem
+    private Set<String> changedBookingIds;
 
     public Room(String id, String name) {
+        this(id, name, BookingStorage.TREE);
+    }
+
+    public Room(String id, String name, BookingStorage storage) {
         this.id = id;
         this.name = name;
+        this.storage = storage;
+        if (storage == BookingStorage.SNAPSHOT) {
+            this.bookings = null;
+            this.snapshot = RoomSnapshot.empty(id, name);
+        } else {
+            this.bookings = new SegmentedBookingStore(storage == BookingStorage.COMPACT
+                    ? () -> new CompactBookingStore(id)
+                    : BookingIntervalTree::new);
+        }
     }
 
     public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.isAvailable(startTime, endTime);
+        }
+        lock.readLock().lock();
+        try {
+            if (bookings.overlapsAny(startTime, endTime)) {
+                return false;
+            }
+            if (recurringById.isEmpty()) {
+                return true;
+            }
+            for (RecurringBooking recurring : recurringById.values()) {
+                if (recurring.overlaps(startTime, endTime)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void addBooking(Booking booking) {
-        bookings.add(booking);
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                snapshot = snapshot.withBooking(booking);
+            } else if (booking instanceof RecurringBooking recurring) {
+                bookings.remove(recurring.getId());
+                recurringById.put(recurring.getId(), recurring);
+            } else {
+                recurringById.remove(booking.getId());
+                bookings.add(booking);
+            }
+            changed(booking.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                snapshot = snapshot.withoutBooking(bookingId);
+            } else if (bookings.remove(bookingId) == null) {
+                recurringById.remove(bookingId);
+            }
+            changed(bookingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.hasBooking(bookingId);
+        }
+        lock.readLock().lock();
+        try {
+            return bookings.contains(bookingId) || recurringById.containsKey(bookingId);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.findBooking(bookingId)
+                    .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+        }
+        Booking booking;
+        lock.readLock().lock();
+        try {
+            booking = bookings.get(bookingId);
+            if (booking == null) {
+                booking = recurringById.get(bookingId);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (booking == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return booking;
+    }
+
+    public List<Booking> getBookings() {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return Collections.unmodifiableList(current.getBookings());
+        }
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(bookings.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bokningar och enskilda tillfällen ur serier som överlappar intervallet, sorterade på starttid
+    public List<Booking> getBookings(LocalDateTime startTime, LocalDateTime endTime) {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.getBookings(startTime, endTime);
+        }
+        lock.readLock().lock();
+        try {
+            List<Booking> result = new ArrayList<>();
+            bookings.forEachOverlapping(startTime, endTime, result::add);
+            if (!recurringById.isEmpty()) {
+                for (RecurringBooking recurring : recurringById.values()) {
+                    result.addAll(recurring.getOccurrences(startTime, endTime));
+                }
+                result.sort(Comparator.comparing(Booking::getStartTime));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Flyttar månader där alla bokningar är slut före cutoff till arkivet.
+     * Arkiverade bokningar kan inte krocka med nya och syns inte längre i
+     * isAvailable, hasBooking, getBooking eller getBookings, bara i historiken
+     * och hasArchivedBooking.
+     * Returnerar antalet bokningar som arkiverades, lika för alla lagringssätt.
+     */
+    public int archiveBefore(LocalDateTime cutoff) {
+        return archiveBefore(cutoff, booking -> { });
+    }
+
+    // Som archiveBefore(cutoff), men lämnar också varje arkiverad bokning till onArchived
+    public int archiveBefore(LocalDateTime cutoff, Consumer<Booking> onArchived) {
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                RoomSnapshot archived = snapshot.archivedBefore(cutoff);
+                int count = archived.getArchivedBookings().size() - snapshot.getArchivedBookings().size();
+                if (count > 0) {
+                    for (Booking booking : archived.getArchivedBookings()) {
+                        if (!snapshot.hasArchivedBooking(booking.getId())) {
+                            onArchived.accept(booking);
+                        }
+                    }
+                }
+                snapshot = archived;
+                return count;
+            }
+            return bookings.archiveBefore(cutoff, onArchived);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean hasArchivedBooking(String bookingId) {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.hasArchivedBooking(bookingId);
+        }
+        lock.readLock().lock();
+        try {
+            return bookings.getArchived(bookingId) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Booking> getBookingHistory(LocalDateTime startTime, LocalDateTime endTime) {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.getBookingHistory(startTime, endTime);
+        }
+        lock.readLock().lock();
+        try {
+            return bookings.archivedBetween(startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Booking> getArchivedBookings() {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.getArchivedBookings();
+        }
+        lock.readLock().lock();
+        try {
+            return bookings.archived();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RecurringBooking> getRecurringBookings() {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.getRecurringBookings();
+        }
+        lock.readLock().lock();
+        try {
+            return List.copyOf(recurringById.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Booking cancelOccurrence(String bookingId, LocalDateTime occurrenceStart) {
+        lock.writeLock().lock();
+        try {
+            RecurringBooking recurring = snapshot != null
+                    ? snapshot.getRecurringBooking(bookingId)
+                    : recurringById.get(bookingId);
+            if (recurring == null) {
+                throw new IllegalArgumentException("Återkommande bokning finns inte");
+            }
+            RecurringBooking updated = recurring.withoutOccurrence(occurrenceStart);
+            if (snapshot != null) {
+                snapshot = snapshot.withBooking(updated);
+            } else {
+                recurringById.put(bookingId, updated);
+            }
+            changed(bookingId);
+            return new Booking(bookingId, id, occurrenceStart, occurrenceStart.plus(recurring.getDuration()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * En oföränderlig version av rummet just nu. Med BookingStorage.SNAPSHOT är
+     * det den senast publicerade versionen och kostar ingenting; annars kopieras
+     * bokningarna under läslåset.
+     */
+    public RoomSnapshot snapshot() {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            return RoomSnapshot.of(id, name, bookings.toList(), List.copyOf(recurringById.values()), bookings.archived());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Den levande eller arkiverade bokningen med id:t, eller null
+    Booking findBooking(String bookingId) {
+        RoomSnapshot current = snapshot;
+        if (current != null) {
+            return current.findBooking(bookingId).orElseGet(() -> current.getArchivedBooking(bookingId));
+        }
+        lock.readLock().lock();
+        try {
+            Booking booking = bookings.get(bookingId);
+            if (booking == null) {
+                booking = recurringById.get(bookingId);
+            }
+            return booking != null ? booking : bookings.getArchived(bookingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Boknings-id som lagts till, ändrats eller tagits bort sedan förra
+     * anropet, så att ett repository kan skriva bara skillnaden. Det första
+     * anropet returnerar null och börjar samla; rum som aldrig sparas på det
+     * sättet samlar alltså ingenting.
+     */
+    Set<String> drainChangedBookings() {
+        lock.writeLock().lock();
+        try {
+            Set<String> drained = changedBookingIds;
+            changedBookingIds = new HashSet<>();
+            return drained;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void changed(String bookingId) {
+        if (changedBookingIds != null) {
+            changedBookingIds.add(bookingId);
+        }
+    }
+
+    // Sant när snapshot() bara lämnar ut den senaste versionen i stället för att kopiera
+    boolean hasSnapshotStorage() {
+        return snapshot != null;
     }
 
     public String getId() {
@@ -47,4 +348,8 @@ public class Room {
     public String getName() {
         return name;
     }
+
+    public BookingStorage getStorage() {
+        return storage;
+    }
 }
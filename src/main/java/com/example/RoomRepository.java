@@ -7,4 +7,11 @@ public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    // Rummet med bokningen, även om den har arkiverats. Implementationer med eget index över boknings-id bör skriva över denna
+    default Optional<Room> findByBookingId(String bookingId) {
+        return findAll().stream()
+                .filter(room -> room.hasBooking(bookingId) || room.hasArchivedBooking(bookingId))
+                .findFirst();
+    }
 }
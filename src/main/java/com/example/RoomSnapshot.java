@@ -0,0 +1,224 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * En oföränderlig version av ett rums bokningar. Rum med
+ * {@link BookingStorage#SNAPSHOT} publicerar en ny version vid varje ändring
+ * och läser alltid från den senaste, så läsare behöver inga lås och stoppar
+ * aldrig en skrivning. Den som håller en version ser samma bokningar hela
+ * tiden, oavsett vad som bokas under tiden.
+ */
+public final class RoomSnapshot {
+    private final String id;
+    private final String name;
+    private final PersistentBookingTree bookings;
+    private final PersistentMap<String, Booking> bookingsById;
+    private final PersistentMap<String, RecurringBooking> recurringById;
+    private final List<Booking> archived;
+    private final PersistentMap<String, Booking> archivedById;
+    // Senaste månad som redan har gåtts igenom för arkivering
+    private final int archiveCheckedMonth;
+
+    private RoomSnapshot(String id, String name, PersistentBookingTree bookings,
+                         PersistentMap<String, Booking> bookingsById,
+                         PersistentMap<String, RecurringBooking> recurringById,
+                         List<Booking> archived, PersistentMap<String, Booking> archivedById,
+                         int archiveCheckedMonth) {
+        this.id = id;
+        this.name = name;
+        this.bookings = bookings;
+        this.bookingsById = bookingsById;
+        this.recurringById = recurringById;
+        this.archived = archived;
+        this.archivedById = archivedById;
+        this.archiveCheckedMonth = archiveCheckedMonth;
+    }
+
+    static RoomSnapshot empty(String id, String name) {
+        return new RoomSnapshot(id, name, PersistentBookingTree.EMPTY, PersistentMap.empty(), PersistentMap.empty(),
+                List.of(), PersistentMap.empty(), Integer.MIN_VALUE);
+    }
+
+    // Kopia av ett rum som lagrar bokningarna på annat sätt; arkivet förutsätts vara sorterat på starttid
+    static RoomSnapshot of(String id, String name, List<Booking> bookings, List<RecurringBooking> recurring,
+                           List<Booking> archived) {
+        PersistentBookingTree tree = PersistentBookingTree.EMPTY;
+        PersistentMap<String, Booking> byId = PersistentMap.empty();
+        for (Booking booking : bookings) {
+            tree = tree.with(booking);
+            byId = byId.with(booking.getId(), booking);
+        }
+        PersistentMap<String, RecurringBooking> recurringById = PersistentMap.empty();
+        for (RecurringBooking series : recurring) {
+            recurringById = recurringById.with(series.getId(), series);
+        }
+        PersistentMap<String, Booking> archivedById = PersistentMap.empty();
+        for (Booking booking : archived) {
+            archivedById = archivedById.with(booking.getId(), booking);
+        }
+        return new RoomSnapshot(id, name, tree, byId, recurringById, List.copyOf(archived), archivedById,
+                Integer.MIN_VALUE);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
+        if (bookings.overlapsAny(startTime, endTime)) {
+            return false;
+        }
+        if (recurringById.isEmpty()) {
+            return true;
+        }
+        for (RecurringBooking recurring : recurringById.values()) {
+            if (recurring.overlaps(startTime, endTime)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasBooking(String bookingId) {
+        return bookingsById.containsKey(bookingId) || recurringById.containsKey(bookingId);
+    }
+
+    public Optional<Booking> findBooking(String bookingId) {
+        Booking booking = bookingsById.get(bookingId);
+        return Optional.ofNullable(booking != null ? booking : recurringById.get(bookingId));
+    }
+
+    public List<Booking> getBookings() {
+        return bookings.toList();
+    }
+
+    public List<Booking> getBookings(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Booking> result = new ArrayList<>();
+        bookings.forEachOverlapping(startTime, endTime, result::add);
+        if (!recurringById.isEmpty()) {
+            for (RecurringBooking recurring : recurringById.values()) {
+                result.addAll(recurring.getOccurrences(startTime, endTime));
+            }
+            result.sort(Comparator.comparing(Booking::getStartTime));
+        }
+        return result;
+    }
+
+    public List<RecurringBooking> getRecurringBookings() {
+        return recurringById.values();
+    }
+
+    public List<Booking> getArchivedBookings() {
+        return archived;
+    }
+
+    public boolean hasArchivedBooking(String bookingId) {
+        return archivedById.containsKey(bookingId);
+    }
+
+    Booking getArchivedBooking(String bookingId) {
+        return archivedById.get(bookingId);
+    }
+
+    public List<Booking> getBookingHistory(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Booking> result = new ArrayList<>();
+        for (Booking booking : archived) {
+            if (booking.getStartTime().isAfter(endTime)) {
+                break;
+            }
+            if (booking.overlaps(startTime, endTime)) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    RecurringBooking getRecurringBooking(String bookingId) {
+        return recurringById.get(bookingId);
+    }
+
+    RoomSnapshot withBooking(Booking booking) {
+        RoomSnapshot base = withoutBooking(booking.getId());
+        int checkedMonth = monthOf(booking.getStartTime()) < base.archiveCheckedMonth
+                ? Integer.MIN_VALUE : base.archiveCheckedMonth;
+        if (booking instanceof RecurringBooking recurring) {
+            return new RoomSnapshot(id, name, base.bookings, base.bookingsById,
+                    base.recurringById.with(recurring.getId(), recurring), archived, archivedById, checkedMonth);
+        }
+        return new RoomSnapshot(id, name, base.bookings.with(booking), base.bookingsById.with(booking.getId(), booking),
+                base.recurringById, archived, archivedById, checkedMonth);
+    }
+
+    RoomSnapshot withoutBooking(String bookingId) {
+        Booking existing = bookingsById.get(bookingId);
+        if (existing != null) {
+            return new RoomSnapshot(id, name, bookings.without(existing), bookingsById.without(bookingId),
+                    recurringById, archived, archivedById, archiveCheckedMonth);
+        }
+        if (recurringById.containsKey(bookingId)) {
+            return new RoomSnapshot(id, name, bookings, bookingsById, recurringById.without(bookingId),
+                    archived, archivedById, archiveCheckedMonth);
+        }
+        return this;
+    }
+
+    /*
+     * Samma regel som de månadsvisa segmenten: startmånader före cutoffs månad
+     * arkiveras i tidsordning så länge alla deras bokningar har slutat före
+     * cutoff. Varje månad gås igenom en gång, så anropet kostar en jämförelse
+     * resten av månaden.
+     */
+    RoomSnapshot archivedBefore(LocalDateTime cutoff) {
+        int cutoffMonth = monthOf(cutoff);
+        if (cutoffMonth <= archiveCheckedMonth) {
+            return this;
+        }
+        List<Booking> ordered = bookings.toList();
+        int archivedCount = 0;
+        int index = 0;
+        while (index < ordered.size() && monthOf(ordered.get(index).getStartTime()) < cutoffMonth) {
+            int month = monthOf(ordered.get(index).getStartTime());
+            int monthEnd = index;
+            boolean finished = true;
+            while (monthEnd < ordered.size() && monthOf(ordered.get(monthEnd).getStartTime()) == month) {
+                finished &= ordered.get(monthEnd).getEndTime().isBefore(cutoff);
+                monthEnd++;
+            }
+            if (!finished) {
+                break;
+            }
+            archivedCount = monthEnd;
+            index = monthEnd;
+        }
+        if (archivedCount == 0) {
+            return new RoomSnapshot(id, name, bookings, bookingsById, recurringById, archived, archivedById, cutoffMonth);
+        }
+        PersistentBookingTree remaining = bookings;
+        PersistentMap<String, Booking> remainingById = bookingsById;
+        PersistentMap<String, Booking> newArchivedById = archivedById;
+        List<Booking> newArchive = new ArrayList<>(archived.size() + archivedCount);
+        newArchive.addAll(archived);
+        for (Booking booking : ordered.subList(0, archivedCount)) {
+            remaining = remaining.without(booking);
+            remainingById = remainingById.without(booking.getId());
+            newArchivedById = newArchivedById.with(booking.getId(), booking);
+            newArchive.add(booking);
+        }
+        newArchive.sort(Comparator.comparing(Booking::getStartTime));
+        return new RoomSnapshot(id, name, remaining, remainingById, recurringById, List.copyOf(newArchive),
+                newArchivedById, cutoffMonth);
+    }
+
+    private static int monthOf(LocalDateTime time) {
+        return time.getYear() * 12 + time.getMonthValue() - 1;
+    }
+}
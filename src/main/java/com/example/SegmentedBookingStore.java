@@ -0,0 +1,212 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bokningar uppdelade i ett segment per startmånad. Varje segment är en egen
+ * {@link BookingStore} och vet sin senaste sluttid, så en fråga hoppar över
+ * segment som börjar efter intervallet eller tar slut före det. Segment där
+ * allt har passerat flyttas med {@link #archiveBefore} till ett kallt arkiv
+ * av vanliga listor som överlappskontrollerna aldrig tittar i. Varje
+ * boknings-id pekar på sitt segment, så uppslag på id går till ett enda
+ * segment oavsett hur många månader rummet har.
+ */
+final class SegmentedBookingStore implements BookingStore {
+
+    private static final class Segment {
+        final int month;
+        final BookingStore bookings;
+        long maxEnd = Long.MIN_VALUE;
+
+        Segment(int month, BookingStore bookings) {
+            this.month = month;
+            this.bookings = bookings;
+        }
+    }
+
+    private static final Segment[] NO_SEGMENTS = new Segment[0];
+
+    private final Supplier<BookingStore> storeFactory;
+    // Levande segment sorterade på månad; ett fält så att sökningar inte skapar iteratorer
+    private Segment[] segments = NO_SEGMENTS;
+    private final Map<String, Segment> segmentById = new HashMap<>();
+    private final TreeMap<Integer, List<Booking>> archive = new TreeMap<>();
+    private final Map<String, Booking> archivedById = new HashMap<>();
+    private int size;
+
+    SegmentedBookingStore(Supplier<BookingStore> storeFactory) {
+        this.storeFactory = storeFactory;
+    }
+
+    @Override
+    public void add(Booking booking) {
+        if (segmentById.containsKey(booking.getId())) {
+            remove(booking.getId());
+        }
+        Segment segment = segmentFor(monthOf(booking.getStartTime()));
+        segment.bookings.add(booking);
+        segment.maxEnd = Math.max(segment.maxEnd, booking.getEndEpochNanos());
+        segmentById.put(booking.getId(), segment);
+        size++;
+    }
+
+    @Override
+    public Booking remove(String bookingId) {
+        Segment segment = segmentById.remove(bookingId);
+        if (segment == null) {
+            return null;
+        }
+        size--;
+        return segment.bookings.remove(bookingId);
+    }
+
+    @Override
+    public Booking get(String bookingId) {
+        Segment segment = segmentById.get(bookingId);
+        return segment == null ? null : segment.bookings.get(bookingId);
+    }
+
+    @Override
+    public boolean contains(String bookingId) {
+        return segmentById.containsKey(bookingId);
+    }
+
+    @Override
+    public boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        int lastMonth = monthOf(end);
+        for (Segment segment : segments) {
+            if (segment.month > lastMonth) {
+                return false;
+            }
+            if (segment.maxEnd >= startKey && segment.bookings.overlapsAny(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachOverlapping(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        long startKey = BookingTimes.toEpochNanos(start);
+        int lastMonth = monthOf(end);
+        for (Segment segment : segments) {
+            if (segment.month > lastMonth) {
+                return;
+            }
+            if (segment.maxEnd >= startKey) {
+                segment.bookings.forEachOverlapping(start, end, action);
+            }
+        }
+    }
+
+    @Override
+    public List<Booking> toList() {
+        List<Booking> result = new ArrayList<>(size);
+        for (Segment segment : segments) {
+            result.addAll(segment.bookings.toList());
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Arkiverar segment vars månad är slut och vars alla bokningar slutat före
+     * cutoff, lämnar varje arkiverad bokning till onArchived och returnerar
+     * antalet arkiverade bokningar. Kostar en jämförelse
+     * när inget finns att arkivera, eftersom segmenten är sorterade och
+     * arkiveringen slutar vid första levande segment.
+     */
+    int archiveBefore(LocalDateTime cutoff, Consumer<Booking> onArchived) {
+        long cutoffKey = BookingTimes.toEpochNanos(cutoff);
+        int cutoffMonth = monthOf(cutoff);
+        int archivedSegments = 0;
+        int archivedBookings = 0;
+        while (archivedSegments < segments.length) {
+            Segment segment = segments[archivedSegments];
+            if (segment.month >= cutoffMonth || segment.maxEnd >= cutoffKey) {
+                break;
+            }
+            List<Booking> archived = archive.computeIfAbsent(segment.month, month -> new ArrayList<>());
+            for (Booking booking : segment.bookings.toList()) {
+                segmentById.remove(booking.getId());
+                archivedById.put(booking.getId(), booking);
+                archived.add(booking);
+                onArchived.accept(booking);
+            }
+            archived.sort(Comparator.comparing(Booking::getStartTime));
+            archivedBookings += segment.bookings.size();
+            archivedSegments++;
+        }
+        if (archivedSegments > 0) {
+            segments = Arrays.copyOfRange(segments, archivedSegments, segments.length);
+            size -= archivedBookings;
+        }
+        return archivedBookings;
+    }
+
+    // Arkiverade bokningar som överlappar intervallet, sorterade på starttid
+    List<Booking> archivedBetween(LocalDateTime start, LocalDateTime end) {
+        List<Booking> result = new ArrayList<>();
+        for (Map.Entry<Integer, List<Booking>> entry : archive.headMap(monthOf(end), true).entrySet()) {
+            for (Booking booking : entry.getValue()) {
+                if (booking.overlaps(start, end)) {
+                    result.add(booking);
+                }
+            }
+        }
+        return result;
+    }
+
+    Booking getArchived(String bookingId) {
+        return archivedById.get(bookingId);
+    }
+
+    List<Booking> archived() {
+        List<Booking> result = new ArrayList<>();
+        for (List<Booking> bookings : archive.values()) {
+            result.addAll(bookings);
+        }
+        return result;
+    }
+
+    private Segment segmentFor(int month) {
+        int low = 0;
+        int high = segments.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments[mid].month < month) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low < segments.length && segments[low].month == month) {
+            return segments[low];
+        }
+        Segment segment = new Segment(month, storeFactory.get());
+        Segment[] grown = new Segment[segments.length + 1];
+        System.arraycopy(segments, 0, grown, 0, low);
+        grown[low] = segment;
+        System.arraycopy(segments, low, grown, low + 1, segments.length - low);
+        segments = grown;
+        return segment;
+    }
+
+    private static int monthOf(LocalDateTime time) {
+        return time.getYear() * 12 + time.getMonthValue() - 1;
+    }
+}
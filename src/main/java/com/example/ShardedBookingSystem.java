@@ -0,0 +1,215 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Fördelar rummen på flera oberoende {@link BookingSystem}, ett per
+ * {@link RoomRepository}, efter hash av rum-id. Anrop för ett rum går direkt
+ * till partitionen som äger rummet; sökningar över alla rum körs parallellt
+ * på partitionernas egna exekverare och slås ihop. Boknings-id är UUID av
+ * version 8 med partitionens nummer inbakat, så en avbokning hittar rätt
+ * partition utan att fråga alla.
+ */
+public class ShardedBookingSystem implements AutoCloseable {
+    // UUID-versionen för egendefinierat innehåll; de tolv bitarna efter versionen är partitionen
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VERSION_8 = 0x8000L;
+    private static final long SHARD_MASK = 0x0FFFL;
+    private static final int MAX_SHARDS = (int) SHARD_MASK + 1;
+
+    private final BookingSystem[] shards;
+    private final ExecutorService[] executors;
+
+    public ShardedBookingSystem(TimeProvider timeProvider,
+                                List<? extends RoomRepository> repositories,
+                                NotificationService notificationService) {
+        if (repositories.isEmpty() || repositories.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("Antal partitioner måste vara mellan 1 och " + MAX_SHARDS);
+        }
+        int count = repositories.size();
+        this.shards = new BookingSystem[count];
+        this.executors = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            int shard = i;
+            shards[i] = new BookingSystem(timeProvider, repositories.get(i), notificationService,
+                    null, null, null, () -> newBookingId(shard));
+            executors[i] = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("booking-shard-" + i + "-", 0).factory());
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(String roomId) {
+        int h = roomId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    // Lägger till rummet i den partition som äger det
+    public void addRoom(Room room) {
+        shardFor(room.getId()).addRoom(room);
+    }
+
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        return shardFor(roomId).bookRoom(roomId, startTime, endTime);
+    }
+
+    public boolean bookRecurringRoom(String roomId, LocalDateTime firstStart, Duration duration, Recurrence recurrence) {
+        return shardFor(roomId).bookRecurringRoom(roomId, firstStart, duration, recurrence);
+    }
+
+    /*
+     * Allt-eller-inget gäller bara inom en partition, så alla rum i en
+     * gemensam bokning måste ägas av samma partition. I övrigt som
+     * BookingSystem.bookRooms: en tom lista lyckas utan att boka något.
+     */
+    public boolean bookRooms(List<BookingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Bokningslistan kan inte vara null");
+        }
+        if (requests.isEmpty()) {
+            return true;
+        }
+        int shard = -1;
+        for (BookingRequest request : requests) {
+            if (request == null || request.getRoomId() == null) {
+                throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+            }
+            int owner = shardOf(request.getRoomId());
+            if (shard != -1 && owner != shard) {
+                throw new IllegalArgumentException("Rummen i en gemensam bokning måste ligga i samma partition");
+            }
+            shard = owner;
+        }
+        return shards[shard].bookRooms(requests);
+    }
+
+    // Sorterade på rum-id, så att ordningen inte beror på hur rummen fördelats
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        return gather(shard -> shard.getAvailableRooms(startTime, endTime), Comparator.comparing(Room::getId));
+    }
+
+    public List<FreeSlot> findFreeSlots(String roomId, LocalDateTime windowStart, LocalDateTime windowEnd,
+                                        Duration duration, int limit) {
+        return shardFor(roomId).findFreeSlots(roomId, windowStart, windowEnd, duration, limit);
+    }
+
+    public List<Booking> getBookingHistory(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        return shardFor(roomId).getBookingHistory(roomId, startTime, endTime);
+    }
+
+    // Kör underhållssteget i varje partition och returnerar det sammanlagda antalet arkiverade bokningar
+    public int archiveFinishedBookings() {
+        int archived = 0;
+        for (BookingSystem shard : shards) {
+            archived += shard.archiveFinishedBookings();
+        }
+        return archived;
+    }
+
+    public boolean cancelBooking(String bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        int shard = shardOfBooking(bookingId);
+        if (shard >= 0) {
+            return shards[shard].cancelBooking(bookingId);
+        }
+        // Bokningar som inte skapats här bär ingen partition och måste letas upp
+        for (BookingSystem candidate : shards) {
+            if (candidate.cancelBooking(bookingId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean cancelBooking(String bookingId, LocalDateTime occurrenceStart) {
+        if (bookingId == null || occurrenceStart == null) {
+            throw new IllegalArgumentException("Boknings-id och tillfälle kan inte vara null");
+        }
+        int shard = shardOfBooking(bookingId);
+        if (shard >= 0) {
+            return shards[shard].cancelBooking(bookingId, occurrenceStart);
+        }
+        for (BookingSystem candidate : shards) {
+            if (candidate.cancelBooking(bookingId, occurrenceStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService executor : executors) {
+            executor.close();
+        }
+    }
+
+    // Partitionen som skapade bokningen, eller -1 om id:t inte kommer härifrån
+    int shardOfBooking(String bookingId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(bookingId);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        long msb = uuid.getMostSignificantBits();
+        if ((msb & VERSION_MASK) != VERSION_8 || uuid.variant() != 2) {
+            return -1;
+        }
+        int shard = (int) (msb & SHARD_MASK);
+        return shard < shards.length ? shard : -1;
+    }
+
+    private static String newBookingId(int shard) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~(VERSION_MASK | SHARD_MASK)) | VERSION_8 | shard;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private BookingSystem shardFor(String roomId) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Rum-id kan inte vara null");
+        }
+        return shards[shardOf(roomId)];
+    }
+
+    private <T> List<T> gather(Function<BookingSystem, Collection<T>> query, Comparator<? super T> order) {
+        List<CompletableFuture<Collection<T>>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            BookingSystem shard = shards[i];
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executors[i]));
+        }
+        List<T> result = new ArrayList<>();
+        for (CompletableFuture<Collection<T>> future : futures) {
+            try {
+                result.addAll(future.join());
+            } catch (CompletionException e) {
+                // Samma undantag som ett anrop mot en enskild partition hade gett
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        result.sort(order);
+        return result;
+    }
+}
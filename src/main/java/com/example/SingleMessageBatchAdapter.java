@@ -0,0 +1,56 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Låter tjänster som bara kan skicka ett meddelande i taget användas där en
+ * {@link BatchNotificationService} krävs. Ett misslyckat meddelande stoppar
+ * inte resten av satsen; det första felet kastas när alla har försökts.
+ */
+final class SingleMessageBatchAdapter implements BatchNotificationService {
+    private interface Sender {
+        void send(Booking booking) throws NotificationException;
+    }
+
+    private final NotificationService delegate;
+
+    SingleMessageBatchAdapter(NotificationService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        delegate.sendBookingConfirmation(booking);
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        delegate.sendCancellationConfirmation(booking);
+    }
+
+    @Override
+    public void sendBookingConfirmations(List<Booking> bookings) throws NotificationException {
+        sendEach(bookings, delegate::sendBookingConfirmation);
+    }
+
+    @Override
+    public void sendCancellationConfirmations(List<Booking> bookings) throws NotificationException {
+        sendEach(bookings, delegate::sendCancellationConfirmation);
+    }
+
+    private static void sendEach(List<Booking> bookings, Sender sender) throws NotificationException {
+        NotificationException firstFailure = null;
+        for (Booking booking : bookings) {
+            try {
+                sender.send(booking);
+            } catch (NotificationException e) {
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example;
+
+import java.util.List;
+
+// Tar tid på varje utskick; satsvisa utskick går vidare till den underliggande tjänsten som en sats
+final class TimedNotificationService implements BatchNotificationService {
+    private final NotificationService delegate;
+    private final BookingMetrics metrics;
+
+    TimedNotificationService(NotificationService delegate, BookingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        long start = metrics.startTimer();
+        try {
+            delegate.sendBookingConfirmation(booking);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.NOTIFICATION_SEND, start);
+        }
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        long start = metrics.startTimer();
+        try {
+            delegate.sendCancellationConfirmation(booking);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.NOTIFICATION_SEND, start);
+        }
+    }
+
+    @Override
+    public void sendBookingConfirmations(List<Booking> bookings) throws NotificationException {
+        long start = metrics.startTimer();
+        try {
+            BatchNotificationService.adapt(delegate).sendBookingConfirmations(bookings);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.NOTIFICATION_SEND, start);
+        }
+    }
+
+    @Override
+    public void sendCancellationConfirmations(List<Booking> bookings) throws NotificationException {
+        long start = metrics.startTimer();
+        try {
+            BatchNotificationService.adapt(delegate).sendCancellationConfirmations(bookings);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.NOTIFICATION_SEND, start);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import java.util.List;
+import java.util.Optional;
+
+// Tar tid på varje anrop till ett annat repository; används bara när mätning är påslagen
+final class TimedRoomRepository implements RoomRepository {
+    private final RoomRepository delegate;
+    private final BookingMetrics metrics;
+
+    TimedRoomRepository(RoomRepository delegate, BookingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        long start = metrics.startTimer();
+        try {
+            return delegate.findById(id);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.REPOSITORY_FIND_BY_ID, start);
+        }
+    }
+
+    @Override
+    public List<Room> findAll() {
+        long start = metrics.startTimer();
+        try {
+            return delegate.findAll();
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.REPOSITORY_FIND_ALL, start);
+        }
+    }
+
+    @Override
+    public void save(Room room) {
+        long start = metrics.startTimer();
+        try {
+            delegate.save(room);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.REPOSITORY_SAVE, start);
+        }
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        long start = metrics.startTimer();
+        try {
+            return delegate.findByBookingId(bookingId);
+        } finally {
+            metrics.stopTimer(BookingMetrics.Timer.REPOSITORY_FIND_BY_BOOKING_ID, start);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.payment;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Belopp i hela ören (minsta enhet) som {@code long}, så att summor och
+ * rabatter blir exakta. Aritmetiken finns både på objektet och som statiska
+ * metoder på {@code long}; de statiska skapar inga objekt och används i
+ * kundvagnens och betalningens heta vägar. Omvandling från {@code double}
+ * avrundar HALF_UP till två decimaler, som priserna alltid har gjort.
+ * Rabatter räknas på det oavrundade priset med rabattsatsen i miljondelar,
+ * och först det rabatterade priset avrundas till helt öre.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long PARTS_PER_MILLION = 1_000_000;
+    // Ett pris i ören eller en procentsats i miljondelar som inte ryms i en long
+    private static final long NOT_WHOLE = Long.MIN_VALUE;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(double amount) {
+        return ofMinorUnits(minorUnitsOf(amount));
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // Beloppet i ören, avrundat på decimalformen av talet så att 1.005 blir 1.01
+    public static long minorUnitsOf(double amount) {
+        long fast = wholeIfClose(amount, 100);
+        if (fast != NOT_WHOLE) {
+            return fast;
+        }
+        return BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Rabatterat pris i ören; ett pris med fler än två decimaler avrundas först efter rabatten
+    public static long discountedMinorUnitsOf(double price, double discountPercentage) {
+        long priceMinorUnits = wholeIfClose(price, 100);
+        long partsPerMillion = wholeIfClose(discountPercentage, 10_000);
+        if (priceMinorUnits != NOT_WHOLE && partsPerMillion != NOT_WHOLE) {
+            return discount(priceMinorUnits, partsPerMillion);
+        }
+        return exactDiscount(BigDecimal.valueOf(price), discountPercentage);
+    }
+
+    public static long discountedMinorUnitsOf(long priceMinorUnits, double discountPercentage) {
+        long partsPerMillion = wholeIfClose(discountPercentage, 10_000);
+        if (partsPerMillion != NOT_WHOLE) {
+            return discount(priceMinorUnits, partsPerMillion);
+        }
+        return exactDiscount(BigDecimal.valueOf(priceMinorUnits, SCALE), discountPercentage);
+    }
+
+    /*
+     * Priser har nästan alltid högst två decimaler och rabatter högst fyra,
+     * och då ligger value * scale några ulp från ett heltal. Långt från
+     * halvvägs ger närmaste heltal samma svar som decimalformen, utan att
+     * skapa en BigDecimal. NOT_WHOLE betyder att den exakta vägen behövs.
+     */
+    private static long wholeIfClose(double value, double scale) {
+        double scaled = value * scale;
+        if (Math.abs(scaled) >= 1e13) {
+            return NOT_WHOLE;
+        }
+        long rounded = Math.round(scaled);
+        return Math.abs(scaled - rounded) < 1e-6 ? rounded : NOT_WHOLE;
+    }
+
+    // Priset efter rabatten, med rabattsatsen i miljondelar, avrundat HALF_UP till helt öre
+    public static long discount(long minorUnits, long discountPartsPerMillion) {
+        long scaled = Math.multiplyExact(minorUnits, PARTS_PER_MILLION - discountPartsPerMillion);
+        long result = scaled / PARTS_PER_MILLION;
+        if (Math.abs(scaled % PARTS_PER_MILLION) * 2 >= PARTS_PER_MILLION) {
+            result += Long.signum(scaled);
+        }
+        return result;
+    }
+
+    private static long exactDiscount(BigDecimal price, double discountPercentage) {
+        BigDecimal remaining = BigDecimal.ONE.subtract(BigDecimal.valueOf(discountPercentage).movePointLeft(2));
+        return price.multiply(remaining).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long factor) {
+        return ofMinorUnits(Math.multiplyExact(minorUnits, factor));
+    }
+
+    public Money discounted(double percentage) {
+        return ofMinorUnits(discountedMinorUnitsOf(minorUnits, percentage));
+    }
+
+    // Närmaste double, för gränssnitt som fortfarande tar belopp som flyttal
+    public double toDouble() {
+        return minorUnits / 100.0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -14,15 +14,25 @@ public class PaymentProcessor {
         this.databaseConnection = databaseConnection;
     }
 
+    // Beloppet debiteras och sparas precis som det är, utan avrundning till hela ören
     public boolean processPayment(double amount) throws SQLException {
+        return charge(amount, String.valueOf(amount));
+    }
+
+    public boolean processPayment(Money amount) throws SQLException {
+        // Betaltjänsten och mejlet tar fortfarande flyttal; databasen får det exakta beloppet
+        return charge(amount.toDouble(), amount.toString());
+    }
+
+    private boolean charge(double charged, String storedAmount) throws SQLException {
         // Anropar extern betaltjänst direkt med statisk API-nyckel
-        PaymentApiResponse response = paymentApi.charge(API_KEY, amount);
+        PaymentApiResponse response = paymentApi.charge(API_KEY, charged);
 
         // Skriver till databas direkt
         if (response.isSuccess()) {
             databaseConnection.getInstance()
-                    .executeUpdate("INSERT INTO payments (amount, status) VALUES (" + amount + ", 'SUCCESS')");
-            emailService.sendPaymentConfirmation("user@example.com", amount);
+                    .executeUpdate("INSERT INTO payments (amount, status) VALUES (" + storedAmount + ", 'SUCCESS')");
+            emailService.sendPaymentConfirmation("user@example.com", charged);
         }
 
         return response.isSuccess();
@@ -0,0 +1,63 @@
+package com.example.shopping;
+
+import com.example.payment.Money;
+
+/**
+ * En ändring i en sats till {@link ShoppingCart#applyBatch}. Tillägg har
+ * samma betydelse som {@link ShoppingCart#addItem}, uppdateringar som
+ * {@link ShoppingCart#updateQuantity} och borttag som
+ * {@link ShoppingCart#removeItem}.
+ */
+public final class CartOperation {
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    private final Type type;
+    private final String productName;
+    private final int quantity;
+    private final long discountedMinorUnits;
+
+    private CartOperation(Type type, String productName, int quantity, long discountedMinorUnits) {
+        this.type = type;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.discountedMinorUnits = discountedMinorUnits;
+    }
+
+    public static CartOperation add(String productName, double price, int quantity, double discountPercentage) {
+        return new CartOperation(Type.ADD, productName, quantity, Money.discountedMinorUnitsOf(price, discountPercentage));
+    }
+
+    public static CartOperation add(String productName, Money price, int quantity, double discountPercentage) {
+        return new CartOperation(Type.ADD, productName, quantity,
+                Money.discountedMinorUnitsOf(price.getMinorUnits(), discountPercentage));
+    }
+
+    public static CartOperation update(String productName, int quantity) {
+        return new CartOperation(Type.UPDATE, productName, quantity, 0);
+    }
+
+    public static CartOperation remove(String productName) {
+        return new CartOperation(Type.REMOVE, productName, 0, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    long getDiscountedMinorUnits() {
+        return discountedMinorUnits;
+    }
+}
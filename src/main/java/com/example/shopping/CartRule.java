@@ -0,0 +1,13 @@
+package com.example.shopping;
+
+/**
+ * En regel för en enskild vara i kundvagnen. Regeln prövas mot det antal
+ * som raden får efter ändringen och kastar {@link IllegalArgumentException}
+ * om ändringen inte är tillåten.
+ */
+public interface CartRule {
+
+    String getProductName();
+
+    void check(int mergedQuantity);
+}
@@ -0,0 +1,51 @@
+package com.example.shopping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kundvagnsregler indexerade på varunamn. Indexet byggs en gång när reglerna
+ * laddas, så en ändring slår upp varan i en hashtabell och prövar bara den
+ * varans regler, oavsett hur många regler som finns totalt. Instansen ändras
+ * aldrig och kan delas mellan kundvagnar och trådar.
+ */
+public final class CartRules {
+    private static final CartRule[] NO_RULES = new CartRule[0];
+
+    public static final CartRules NONE = new CartRules(Map.of());
+
+    public static final CartRules DEFAULT = of(List.of(new MaxQuantityRule("cream of boar", 6,
+            "We can only provide our customers with 6 cream of boars maximum per person")));
+
+    private final Map<String, CartRule[]> rulesByProduct;
+
+    private CartRules(Map<String, CartRule[]> rulesByProduct) {
+        this.rulesByProduct = rulesByProduct;
+    }
+
+    public static CartRules of(Collection<? extends CartRule> rules) {
+        Map<String, List<CartRule>> grouped = new HashMap<>();
+        for (CartRule rule : rules) {
+            grouped.computeIfAbsent(rule.getProductName(), name -> new ArrayList<>()).add(rule);
+        }
+        Map<String, CartRule[]> index = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<String, List<CartRule>> entry : grouped.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().toArray(NO_RULES));
+        }
+        return new CartRules(index);
+    }
+
+    // Prövar varans regler mot antalet efter ändringen; den första som inte håller kastar
+    public void check(String productName, int mergedQuantity) {
+        CartRule[] rules = rulesByProduct.get(productName);
+        if (rules == null) {
+            return;
+        }
+        for (CartRule rule : rules) {
+            rule.check(mergedQuantity);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.shopping;
+
+import com.example.payment.Money;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kundvagn som flera trådar kan ändra samtidigt, till exempel när samma
+ * kund handlar från telefonen och datorn. Varje ändring av en rad görs med
+ * {@link ConcurrentHashMap#compute}, så att läsning, regelkontroll och
+ * skrivning av raden sker atomärt utan lås över hela vagnen. Raderna byts
+ * ut i stället för att ändras, och totalen hålls i en {@link LongAdder} som
+ * uppdateras i samma steg som raden. {@link CartRules} prövas inne i samma
+ * steg, så en regel kan inte kringgås av två samtidiga tillägg. En rad vars
+ * antal går ned till noll tas bort.
+ */
+public class ConcurrentShoppingCart {
+    private final ConcurrentHashMap<String, Item> items = new ConcurrentHashMap<>();
+    private final LongAdder totalMinorUnits = new LongAdder();
+    private final CartRules rules;
+
+    public ConcurrentShoppingCart() {
+        this(CartRules.DEFAULT);
+    }
+
+    public ConcurrentShoppingCart(CartRules rules) {
+        this.rules = rules;
+    }
+
+    public void addItem(String productName, double price, int quantity, double discountPercentage) {
+        addItem(productName, Money.discountedMinorUnitsOf(price, discountPercentage), quantity);
+    }
+
+    public void addItem(String productName, Money price, int quantity, double discountPercentage) {
+        addItem(productName, Money.discountedMinorUnitsOf(price.getMinorUnits(), discountPercentage), quantity);
+    }
+
+    private void addItem(String productName, long discountedMinorUnits, int quantity) {
+        items.compute(productName, (name, existing) -> {
+            if (existing == null) {
+                if (quantity < 1) {
+                    return null;
+                }
+                rules.check(name, quantity);
+                Item item = new Item(name, discountedMinorUnits, quantity);
+                totalMinorUnits.add(item.getDiscountedMinorUnits() * quantity);
+                return item;
+            }
+            return withQuantity(name, existing, existing.getQuantity() + quantity);
+        });
+    }
+
+    public int itemCount() {
+        return items.size();
+    }
+
+    public void removeItem(String itemName) {
+        items.computeIfPresent(itemName, (name, existing) -> withQuantity(name, existing, 0));
+    }
+
+    public int getQuantity(String productName) {
+        Item item = items.get(productName);
+        return item != null ? item.getQuantity() : 0;
+    }
+
+    // Totalen kan under pågående ändringar ligga en rad före eller efter det som raderna visar
+    public double getTotalPrice() {
+        return totalMinorUnits.sum() / 100.0;
+    }
+
+    public Money getTotal() {
+        return Money.ofMinorUnits(totalMinorUnits.sum());
+    }
+
+    // En rad som en annan enhet redan har tagit bort lämnas borta
+    public void updateQuantity(String productName, int quantity) {
+        items.computeIfPresent(productName, (name, existing) -> withQuantity(name, existing, quantity));
+    }
+
+    // Körs inne i compute; null tar bort raden
+    private Item withQuantity(String productName, Item existing, int quantity) {
+        if (quantity > existing.getQuantity()) {
+            rules.check(productName, quantity);
+        }
+        totalMinorUnits.add(existing.getDiscountedMinorUnits() * (Math.max(quantity, 0) - existing.getQuantity()));
+        return quantity < 1 ? null : existing.withQuantity(quantity);
+    }
+}
@@ -1,19 +1,25 @@
 package com.example.shopping;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import com.example.payment.Money;
 
 public class Item{
     private final String name;
-    private final double price;
     private int quantity;
-    private final double discountPercentage;
+    // Rabatterat pris i ören, räknat en gång när varan skapas
+    private final long discountedMinorUnits;
 
     public Item(String name, double price, int quantity, double discountPercentage) {
+        this(name, Money.discountedMinorUnitsOf(price, discountPercentage), quantity);
+    }
+
+    public Item(String name, Money price, int quantity, double discountPercentage) {
+        this(name, Money.discountedMinorUnitsOf(price.getMinorUnits(), discountPercentage), quantity);
+    }
+
+    Item(String name, long discountedMinorUnits, int quantity) {
         this.name = name;
-        this.price = price;
         this.quantity = quantity;
-        this.discountPercentage = discountPercentage;
+        this.discountedMinorUnits = discountedMinorUnits;
     }
 
     public int getQuantity() {
@@ -25,8 +31,20 @@ public class Item{
     }
 
     public double getDiscountedPrice() {
-        BigDecimal discountedPrice = BigDecimal.valueOf(price * (1 - discountPercentage / 100));
-        return discountedPrice.setScale(2, RoundingMode.HALF_UP).doubleValue();
+        return discountedMinorUnits / 100.0;
+    }
+
+    public Money getDiscountedUnitPrice() {
+        return Money.ofMinorUnits(discountedMinorUnits);
+    }
+
+    long getDiscountedMinorUnits() {
+        return discountedMinorUnits;
+    }
+
+    // Samma vara med ett annat antal, för kundvagnar som aldrig ändrar en delad rad
+    Item withQuantity(int newQuantity) {
+        return new Item(name, discountedMinorUnits, newQuantity);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.example.shopping;
+
+// Högsta tillåtna antal av en vara per kundvagn
+public class MaxQuantityRule implements CartRule {
+    private final String productName;
+    private final int maxQuantity;
+    private final String message;
+
+    public MaxQuantityRule(String productName, int maxQuantity, String message) {
+        if (maxQuantity < 0) {
+            throw new IllegalArgumentException("Maxantal kan inte vara negativt");
+        }
+        this.productName = productName;
+        this.maxQuantity = maxQuantity;
+        this.message = message;
+    }
+
+    @Override
+    public String getProductName() {
+        return productName;
+    }
+
+    @Override
+    public void check(int mergedQuantity) {
+        if (mergedQuantity > maxQuantity) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -1,20 +1,64 @@
 package com.example.shopping;
 
+import com.example.payment.Money;
+
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ShoppingCart {
+
+    // En varas läge efter de operationer i satsen som hittills gåtts igenom
+    private static final class PlannedLine {
+        final Item original;
+        final int originalQuantity;
+        Item item;
+        int quantity;
+
+        PlannedLine(Item original) {
+            this.original = original;
+            this.originalQuantity = original != null ? original.getQuantity() : 0;
+            this.item = original;
+            this.quantity = originalQuantity;
+        }
+    }
+
     private final Map<String, Item> items = new HashMap<>();
+    // Summan av rabatterat pris gånger antal i hela ören, uppdaterad vid varje ändring
+    private long totalMinorUnits;
+    private final CartRules rules;
+
+    public ShoppingCart() {
+        this(CartRules.DEFAULT);
+    }
 
+    public ShoppingCart(CartRules rules) {
+        this.rules = rules;
+    }
 
     public void addItem(String productName, double price, int quantity, double discountPercentage) {
-        if (productName.equals("cream of boar") && quantity >6) {
-            throw new IllegalArgumentException("We can only provide our customers with 6 cream of boars maximum per person");
-        }if (items.containsKey(productName)) {
-            Item existingItem = items.get(productName);
+        addItem(productName, Money.discountedMinorUnitsOf(price, discountPercentage), quantity);
+    }
+
+    public void addItem(String productName, Money price, int quantity, double discountPercentage) {
+        addItem(productName, Money.discountedMinorUnitsOf(price.getMinorUnits(), discountPercentage), quantity);
+    }
+
+    private void addItem(String productName, long discountedMinorUnits, int quantity) {
+        Item existingItem = items.get(productName);
+        if (existingItem != null) {
+            // Reglerna gäller det sammanlagda antalet, inte bara det som läggs till
+            if (quantity > 0) {
+                rules.check(productName, existingItem.getQuantity() + quantity);
+            }
             existingItem.setQuantity(existingItem.getQuantity() + quantity);
+            totalMinorUnits += existingItem.getDiscountedMinorUnits() * quantity;
         }else if (quantity > 0) {
-            items.put(productName, new Item(productName, price, quantity, discountPercentage));
+            rules.check(productName, quantity);
+            Item item = new Item(productName, discountedMinorUnits, quantity);
+            items.put(productName, item);
+            totalMinorUnits += item.getDiscountedMinorUnits() * quantity;
         }}
 
     public int itemCount() {
@@ -22,25 +66,93 @@ public class ShoppingCart {
     }
 
     public void removeItem(String itemName) {
-        items.remove(itemName);
+        Item removed = items.remove(itemName);
+        if (removed != null) {
+            totalMinorUnits -= removed.getDiscountedMinorUnits() * removed.getQuantity();
+        }
     }
 
     public int getQuantity(String productName) {
         return items.containsKey(productName) ? items.get(productName).getQuantity() : 0;    }
 
     public double getTotalPrice() {
-        double total = 0.0;
-        for (Item item : items.values()) {
-            double discountedPrice = item.getDiscountedPrice();
-            total += discountedPrice * item.getQuantity();
-            }
-        return total;
+        return totalMinorUnits / 100.0;
+    }
+
+    public Money getTotal() {
+        return Money.ofMinorUnits(totalMinorUnits);
     }
 
     public void updateQuantity(String productName, int quantity) {
-        items.get(productName).setQuantity(quantity);
+        Item item = items.get(productName);
+        if (quantity > item.getQuantity()) {
+            rules.check(productName, quantity);
+        }
+        totalMinorUnits += item.getDiscountedMinorUnits() * (quantity - item.getQuantity());
+        item.setQuantity(quantity);
         if (quantity < 1) {
+            totalMinorUnits -= item.getDiscountedMinorUnits() * quantity;
             items.remove(productName);
         }
     }
+
+    /*
+     * Kör alla operationer som om de anropats en i taget, men prövar först
+     * hela satsen mot reglerna på en plan per vara. Bryter någon operation
+     * mot en regel, eller uppdaterar en vara som inte finns, ändras ingenting.
+     * Därefter skrivs varje berörd vara en gång och totalen justeras en gång.
+     */
+    public void applyBatch(List<CartOperation> operations) {
+        Map<String, PlannedLine> plan = new LinkedHashMap<>();
+        for (CartOperation operation : operations) {
+            String productName = operation.getProductName();
+            PlannedLine line = plan.computeIfAbsent(productName, name -> new PlannedLine(items.get(name)));
+            int quantity = operation.getQuantity();
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (line.item != null) {
+                        if (quantity > 0) {
+                            rules.check(productName, line.quantity + quantity);
+                        }
+                        line.quantity += quantity;
+                    } else if (quantity > 0) {
+                        rules.check(productName, quantity);
+                        line.item = new Item(productName, operation.getDiscountedMinorUnits(), quantity);
+                        line.quantity = quantity;
+                    }
+                }
+                case UPDATE -> {
+                    if (line.item == null) {
+                        throw new IllegalArgumentException("There is no " + productName + " in the cart to update");
+                    }
+                    if (quantity > line.quantity) {
+                        rules.check(productName, quantity);
+                    }
+                    line.quantity = quantity;
+                    if (quantity < 1) {
+                        line.item = null;
+                    }
+                }
+                case REMOVE -> line.item = null;
+            }
+        }
+
+        long delta = 0;
+        for (Map.Entry<String, PlannedLine> entry : plan.entrySet()) {
+            PlannedLine line = entry.getValue();
+            if (line.original != null) {
+                delta -= line.original.getDiscountedMinorUnits() * line.originalQuantity;
+            }
+            if (line.item != null) {
+                line.item.setQuantity(line.quantity);
+                if (line.item != line.original) {
+                    items.put(entry.getKey(), line.item);
+                }
+                delta += line.item.getDiscountedMinorUnits() * line.quantity;
+            } else if (line.original != null) {
+                items.remove(entry.getKey());
+            }
+        }
+        totalMinorUnits += delta;
+    }
 }
@@ -0,0 +1,104 @@
+import com.example.AsyncNotificationDispatcher;
+import com.example.Booking;
+import com.example.NotificationException;
+import com.example.NotificationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncNotificationDispatcherTest {
+    private final Booking booking = new Booking("booking1", "room1",
+            LocalDateTime.of(2026, 1, 1, 12, 0), LocalDateTime.of(2026, 1, 1, 13, 0));
+
+    @Test
+    @DisplayName("Failed notifications should be retried until they succeed")
+    void failedNotificationsShouldBeRetried() throws NotificationException {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Gateway timeout"))
+                .doThrow(new NotificationException("Gateway timeout"))
+                .doNothing()
+                .when(delegate).sendBookingConfirmation(booking);
+
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(delegate, 10, 1, 5, Duration.ofMillis(1));
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.close();
+
+        verify(delegate, times(3)).sendBookingConfirmation(booking);
+        assertEquals(0, dispatcher.getFailedDeliveries());
+    }
+
+    @Test
+    @DisplayName("Notifications that keep failing should be counted after the last attempt")
+    void notificationsThatKeepFailingShouldBeCounted() throws NotificationException {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Gateway down")).when(delegate).sendCancellationConfirmation(booking);
+
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(delegate, 10, 1, 3, Duration.ofMillis(1));
+        dispatcher.sendCancellationConfirmation(booking);
+        dispatcher.close();
+
+        verify(delegate, times(3)).sendCancellationConfirmation(booking);
+        assertEquals(1, dispatcher.getFailedDeliveries());
+    }
+
+    @Test
+    @DisplayName("A full queue should reject the notification instead of blocking the caller")
+    void fullQueueShouldRejectNotification() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        NotificationService delegate = mock(NotificationService.class);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(delegate).sendBookingConfirmation(booking);
+
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(delegate, 1, 1, 1, Duration.ofMillis(1));
+        dispatcher.sendBookingConfirmation(booking);
+        started.await();
+        dispatcher.sendBookingConfirmation(booking);
+
+        Exception exception = assertThrows(NotificationException.class, () -> dispatcher.sendBookingConfirmation(booking));
+        assertEquals("Notifieringskön är full", exception.getMessage());
+
+        release.countDown();
+        dispatcher.close();
+        verify(delegate, times(2)).sendBookingConfirmation(booking);
+    }
+
+    @Test
+    @DisplayName("Closing should deliver everything that was queued")
+    void closingShouldDrainQueue() throws NotificationException {
+        NotificationService delegate = mock(NotificationService.class);
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(delegate, 1_000, 4, 1, Duration.ofMillis(1));
+        for (int i = 0; i < 500; i++) {
+            dispatcher.sendBookingConfirmation(booking);
+        }
+        dispatcher.close();
+
+        verify(delegate, times(500)).sendBookingConfirmation(booking);
+        assertThrows(NotificationException.class, () -> dispatcher.sendBookingConfirmation(booking));
+    }
+
+    @Test
+    @DisplayName("An unexpected error from the service should be counted without stopping the worker")
+    void unexpectedErrorShouldNotStopWorker() throws NotificationException {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new IllegalStateException("Trasig mall")).when(delegate).sendCancellationConfirmation(booking);
+
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(delegate, 10, 1, 3, Duration.ofMillis(1));
+        dispatcher.sendCancellationConfirmation(booking);
+        dispatcher.sendBookingConfirmation(booking);
+        verify(delegate, timeout(5_000)).sendBookingConfirmation(booking);
+        dispatcher.close();
+
+        verify(delegate, times(1)).sendCancellationConfirmation(booking);
+        assertEquals(1, dispatcher.getFailedDeliveries());
+    }
+}
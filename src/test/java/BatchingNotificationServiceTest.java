@@ -0,0 +1,155 @@
+import com.example.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BatchingNotificationServiceTest {
+
+    private static List<Booking> bookings(int count) {
+        List<Booking> bookings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < count; i++) {
+            bookings.add(new Booking("booking" + i, "room1", start.plusHours(i), start.plusHours(i).plusMinutes(30)));
+        }
+        return bookings;
+    }
+
+    @Test
+    @DisplayName("Messages should be delivered in batches of the configured size")
+    @SuppressWarnings("unchecked")
+    void messagesShouldBeDeliveredInBatchesOfConfiguredSize() throws NotificationException {
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 100, Duration.ofMinutes(1));
+
+        for (Booking booking : bookings(250)) {
+            batching.sendBookingConfirmation(booking);
+        }
+        batching.close();
+
+        ArgumentCaptor<List<Booking>> batches = ArgumentCaptor.forClass(List.class);
+        verify(delegate, times(3)).sendBookingConfirmations(batches.capture());
+        assertEquals(List.of(100, 100, 50), batches.getAllValues().stream().map(List::size).toList());
+        verify(delegate, never()).sendBookingConfirmation(any());
+    }
+
+    @Test
+    @DisplayName("A partial batch should be delivered when the time window expires")
+    void partialBatchShouldBeDeliveredWhenTimeWindowExpires() throws NotificationException {
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 100, Duration.ofMillis(20));
+
+        for (Booking booking : bookings(3)) {
+            batching.sendCancellationConfirmation(booking);
+        }
+
+        verify(delegate, timeout(2_000)).sendCancellationConfirmations(argThat(batch -> batch.size() == 3));
+        batching.close();
+    }
+
+    @Test
+    @DisplayName("Single-message services should receive every message through the fallback adapter")
+    void singleMessageServicesShouldReceiveEveryMessage() throws NotificationException {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Gateway timeout")).when(delegate).sendBookingConfirmation(argThat(booking -> booking.getId().equals("booking1")));
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 10, Duration.ofMinutes(1));
+
+        for (Booking booking : bookings(5)) {
+            batching.sendBookingConfirmation(booking);
+        }
+        batching.close();
+
+        verify(delegate, times(5)).sendBookingConfirmation(any(Booking.class));
+        assertEquals(1, batching.getFailedBatches());
+    }
+
+    @Test
+    @DisplayName("Messages sent while or after closing should be delivered instead of rejected")
+    void messagesSentWhileClosingShouldBeDelivered() throws Exception {
+        AtomicInteger delivered = new AtomicInteger();
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        doAnswer(invocation -> {
+            delivered.addAndGet(invocation.<List<Booking>>getArgument(0).size());
+            return null;
+        }).when(delegate).sendBookingConfirmations(any());
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 5, Duration.ofMinutes(1));
+        List<Booking> bookings = bookings(2_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> senders = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            List<Booking> part = bookings.subList(t * 500, (t + 1) * 500);
+            senders.add(executor.submit(() -> {
+                for (Booking booking : part) {
+                    batching.sendBookingConfirmation(booking);
+                }
+                return null;
+            }));
+        }
+        batching.close();
+        for (Future<?> sender : senders) {
+            sender.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(2_000, delivered.get());
+        assertEquals(0, batching.getFailedBatches());
+    }
+
+    @Test
+    @DisplayName("A cancellation should never be delivered before the pending confirmation of the same booking")
+    void cancellationShouldFollowPendingConfirmation() throws NotificationException {
+        List<String> delivered = new ArrayList<>();
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        doAnswer(invocation -> {
+            invocation.<List<Booking>>getArgument(0).forEach(booking -> delivered.add("confirmed " + booking.getId()));
+            return null;
+        }).when(delegate).sendBookingConfirmations(any());
+        doAnswer(invocation -> {
+            invocation.<List<Booking>>getArgument(0).forEach(booking -> delivered.add("cancelled " + booking.getId()));
+            return null;
+        }).when(delegate).sendCancellationConfirmations(any());
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 3, Duration.ofMinutes(1));
+        List<Booking> bookings = bookings(2);
+
+        batching.sendBookingConfirmation(bookings.get(0));
+        batching.sendBookingConfirmation(bookings.get(1));
+        batching.sendCancellationConfirmation(bookings.get(0));
+        batching.sendCancellationConfirmation(bookings.get(1));
+        batching.flush();
+
+        assertEquals(List.of("confirmed booking0", "confirmed booking1", "cancelled booking0", "cancelled booking1"),
+                delivered);
+        batching.close();
+    }
+
+    @Test
+    @DisplayName("A runtime error from the delegate should be counted and not stop later batches")
+    void runtimeErrorShouldBeCounted() throws NotificationException {
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        doThrow(new IllegalStateException("Kön är full")).when(delegate).sendBookingConfirmations(any());
+        BatchingNotificationService batching = new BatchingNotificationService(delegate, 2, Duration.ofMinutes(1));
+        List<Booking> bookings = bookings(3);
+
+        batching.sendBookingConfirmation(bookings.get(0));
+        batching.sendBookingConfirmation(bookings.get(1));
+        batching.sendCancellationConfirmation(bookings.get(2));
+        batching.close();
+
+        assertEquals(1, batching.getFailedBatches());
+        verify(delegate).sendCancellationConfirmations(List.of(bookings.get(2)));
+    }
+}
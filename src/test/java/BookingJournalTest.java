@@ -0,0 +1,211 @@
+import com.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BookingJournalTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+    private static final LocalDateTime DAY = NOW.plusDays(1);
+
+    private BookingJournal journal;
+    private BookingSystem bookingSystem;
+    private InMemoryRoomRepository roomRepository;
+
+    @BeforeEach
+    void setUp() {
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Konferensrum"));
+        roomRepository.save(new Room("room2", "Aula"));
+        journal = new BookingJournal();
+        bookingSystem = new BookingSystem(timeProvider, roomRepository, mock(NotificationService.class),
+                null, null, journal);
+    }
+
+    @Test
+    @DisplayName("Bookings and cancellations should be journaled in order and replay to the same rooms")
+    void journalShouldReplayToSameRooms() {
+        assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(9), DAY.plusHours(10)));
+        assertFalse(bookingSystem.bookRoom("room1", DAY.plusHours(9), DAY.plusHours(10)));
+        assertTrue(bookingSystem.bookRooms(List.of(new BookingRequest("room1", DAY.plusHours(11), DAY.plusHours(12)),
+                new BookingRequest("room2", DAY.plusHours(11), DAY.plusHours(12)))));
+        assertTrue(bookingSystem.bookRecurringRoom("room2", DAY.plusHours(14), Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 5)));
+        String first = roomRepository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        String series = roomRepository.findById("room2").orElseThrow().getRecurringBookings().get(0).getId();
+        assertTrue(bookingSystem.cancelBooking(first));
+        assertTrue(bookingSystem.cancelBooking(series, DAY.plusDays(2).plusHours(14)));
+
+        List<BookingEvent> events = journal.read(0, 100);
+        assertEquals(List.of(BookingEvent.Type.BOOKING_CREATED, BookingEvent.Type.BOOKING_CREATED,
+                        BookingEvent.Type.BOOKING_CREATED, BookingEvent.Type.BOOKING_CREATED,
+                        BookingEvent.Type.BOOKING_CANCELLED, BookingEvent.Type.OCCURRENCE_CANCELLED),
+                events.stream().map(BookingEvent::getType).toList());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i, events.get(i).getSequence());
+            assertEquals(NOW, events.get(i).getTimestamp());
+        }
+        assertEquals(first, events.get(4).getBooking().getId());
+        assertEquals(6, journal.getNextSequence());
+
+        InMemoryRoomRepository rebuilt = new InMemoryRoomRepository();
+        rebuilt.save(new Room("room1", "Konferensrum"));
+        rebuilt.save(new Room("room2", "Aula"));
+        journal.replay(rebuilt);
+
+        for (String roomId : List.of("room1", "room2")) {
+            Room original = roomRepository.findById(roomId).orElseThrow();
+            Room replayed = rebuilt.findById(roomId).orElseThrow();
+            assertEquals(original.getBookings(DAY, DAY.plusDays(7)).stream().map(Booking::getStartTime).toList(),
+                    replayed.getBookings(DAY, DAY.plusDays(7)).stream().map(Booking::getStartTime).toList());
+        }
+        assertTrue(rebuilt.findById("room2").orElseThrow().isAvailable(DAY.plusDays(2).plusHours(14), DAY.plusDays(2).plusHours(15)));
+    }
+
+    @Test
+    @DisplayName("Subscribers should start at their offset and only receive what they request")
+    void subscribersShouldReceiveRequestedEventsFromOffset() throws Exception {
+        for (int hour = 9; hour < 13; hour++) {
+            assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(hour), DAY.plusHours(hour).plusMinutes(30)));
+        }
+
+        BlockingQueue<BookingEvent> received = new LinkedBlockingQueue<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        journal.subscribe(2, new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(BookingEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertEquals(2, received.poll(5, TimeUnit.SECONDS).getSequence());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        subscription[0].request(Long.MAX_VALUE);
+        assertEquals(3, received.poll(5, TimeUnit.SECONDS).getSequence());
+        assertTrue(bookingSystem.bookRoom("room2", DAY.plusHours(9), DAY.plusHours(10)));
+        BookingEvent live = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(4, live.getSequence());
+        assertEquals("room2", live.getBooking().getRoomId());
+
+        journal.close();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> journal.read(6, 1));
+    }
+
+    @Test
+    @DisplayName("A closed journal should reject changes before any room is touched")
+    void closedJournalShouldRejectChangesBeforeTouchingRooms() {
+        assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(9), DAY.plusHours(10)));
+        String booked = roomRepository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> bookingSystem.bookRoom("room1", DAY.plusHours(11), DAY.plusHours(12)));
+        assertThrows(IllegalStateException.class, () -> bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", DAY.plusHours(13), DAY.plusHours(14)),
+                new BookingRequest("room2", DAY.plusHours(13), DAY.plusHours(14)))));
+        assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking(booked));
+
+        assertEquals(1, roomRepository.findById("room1").orElseThrow().getBookings().size());
+        assertTrue(roomRepository.findById("room2").orElseThrow().getBookings().isEmpty());
+        assertEquals(1, journal.getNextSequence());
+    }
+
+    @Test
+    @DisplayName("Truncating should drop persisted events but keep sequences and replay the rest on top of saved rooms")
+    void truncatedJournalShouldReplayRemainingEvents() {
+        assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(9), DAY.plusHours(10)));
+        assertTrue(bookingSystem.bookRoom("room2", DAY.plusHours(9), DAY.plusHours(10)));
+        InMemoryRoomRepository persisted = new InMemoryRoomRepository();
+        Room savedRoom1 = new Room("room1", "Konferensrum");
+        savedRoom1.addBooking(roomRepository.findById("room1").orElseThrow().getBookings().get(0));
+        persisted.save(savedRoom1);
+        Room savedRoom2 = new Room("room2", "Aula");
+        savedRoom2.addBooking(roomRepository.findById("room2").orElseThrow().getBookings().get(0));
+        persisted.save(savedRoom2);
+
+        assertEquals(2, journal.truncateBefore(2));
+        assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(11), DAY.plusHours(12)));
+
+        assertThrows(IllegalArgumentException.class, () -> journal.read(1, 1));
+        List<BookingEvent> remaining = journal.read(2, 100);
+        assertEquals(1, remaining.size());
+        assertEquals(2, remaining.get(0).getSequence());
+        assertEquals(3, journal.getNextSequence());
+
+        journal.replay(persisted);
+        assertEquals(2, persisted.findById("room1").orElseThrow().getBookings().size());
+        assertEquals(1, persisted.findById("room2").orElseThrow().getBookings().size());
+    }
+
+    @Test
+    @DisplayName("Truncating should keep events a subscriber has not received yet")
+    void truncatingShouldKeepEventsSubscribersHaveNotReceived() throws Exception {
+        for (int hour = 9; hour < 13; hour++) {
+            assertTrue(bookingSystem.bookRoom("room1", DAY.plusHours(hour), DAY.plusHours(hour).plusMinutes(30)));
+        }
+        BlockingQueue<BookingEvent> received = new LinkedBlockingQueue<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        journal.subscribe(1, new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(BookingEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertEquals(1, received.poll(5, TimeUnit.SECONDS).getSequence());
+
+        assertEquals(2, journal.truncateBefore(4));
+
+        subscription[0].request(Long.MAX_VALUE);
+        assertEquals(2, received.poll(5, TimeUnit.SECONDS).getSequence());
+        assertEquals(3, received.poll(5, TimeUnit.SECONDS).getSequence());
+        journal.close();
+        assertEquals(4, journal.truncateBefore(4));
+    }
+}
@@ -0,0 +1,113 @@
+import com.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BookingMetricsTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+
+    private final TimeProvider timeProvider = mock(TimeProvider.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final InMemoryBookingMetrics metrics = new InMemoryBookingMetrics();
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Konferensrum"));
+        bookingSystem = new BookingSystem(timeProvider, roomRepository, notificationService, null, metrics);
+    }
+
+    @Test
+    @DisplayName("Histogram percentiles should be within the bucket resolution")
+    void histogramPercentilesShouldBeWithinResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + (long) (Math.exp(random.nextDouble() * 20));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 64 + 1,
+                    percentile + ": expected about " + exact + " but was " + reported);
+        }
+    }
+
+    @Test
+    @DisplayName("Booking system should time public methods and repository and notification calls")
+    void bookingSystemShouldRecordTimers() {
+        assertTrue(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+        bookingSystem.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2));
+
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.BOOK_ROOM).getCount());
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.GET_AVAILABLE_ROOMS).getCount());
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.REPOSITORY_FIND_BY_ID).getCount());
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.REPOSITORY_SAVE).getCount());
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.REPOSITORY_FIND_ALL).getCount());
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.NOTIFICATION_SEND).getCount());
+        assertTrue(metrics.getHistogram(BookingMetrics.Timer.BOOK_ROOM).getMax() > 0);
+    }
+
+    @Test
+    @DisplayName("Booking system should count conflicts, started cancellations and notification failures")
+    void bookingSystemShouldCountEvents() throws NotificationException {
+        doThrow(new NotificationException("nere")).when(notificationService).sendBookingConfirmation(any());
+        assertTrue(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+        assertFalse(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+        String bookingId = roomRepository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        when(timeProvider.getCurrentTime()).thenReturn(NOW.plusHours(3));
+
+        assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking(bookingId));
+
+        assertEquals(1, metrics.getCount(BookingMetrics.Counter.BOOKING_CONFLICTS));
+        assertEquals(1, metrics.getCount(BookingMetrics.Counter.NOTIFICATION_FAILURES));
+        assertEquals(1, metrics.getCount(BookingMetrics.Counter.STARTED_BOOKING_CANCELLATIONS));
+        assertEquals(1, metrics.getHistogram(BookingMetrics.Timer.CANCEL_BOOKING).getCount());
+    }
+
+    @Test
+    @DisplayName("Cancelling an archived booking should count as a started cancellation")
+    void cancellingArchivedBookingShouldCountAsStarted() {
+        assertTrue(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+        String bookingId = roomRepository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        when(timeProvider.getCurrentTime()).thenReturn(NOW.plusMonths(2));
+        assertEquals(1, bookingSystem.archiveFinishedBookings());
+
+        assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking(bookingId));
+
+        assertEquals(1, metrics.getCount(BookingMetrics.Counter.STARTED_BOOKING_CANCELLATIONS));
+    }
+
+    @Test
+    @DisplayName("A failed batch confirmation should count as one notification failure")
+    void failedBatchConfirmationShouldCountOnce() throws NotificationException {
+        BatchNotificationService batchNotifications = mock(BatchNotificationService.class);
+        doThrow(new NotificationException("nere")).when(batchNotifications).sendBookingConfirmations(any());
+        roomRepository.save(new Room("room2", "Aula"));
+        BookingSystem batchSystem = new BookingSystem(timeProvider, roomRepository, batchNotifications, null, metrics);
+
+        assertTrue(batchSystem.bookRooms(List.of(new BookingRequest("room1", NOW.plusHours(1), NOW.plusHours(2)),
+                new BookingRequest("room2", NOW.plusHours(1), NOW.plusHours(2)))));
+
+        verify(batchNotifications).sendBookingConfirmations(any());
+        assertEquals(1, metrics.getCount(BookingMetrics.Counter.NOTIFICATION_FAILURES));
+    }
+}
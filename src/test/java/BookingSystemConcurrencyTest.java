@@ -0,0 +1,138 @@
+import com.example.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BookingSystemConcurrencyTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+    @Test
+    @DisplayName("Concurrent bookings and cancellations should never double-book a room")
+    void concurrentBookingsShouldNeverDoubleBook() throws Exception {
+        Map<String, Room> rooms = new ConcurrentHashMap<>();
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        for (int i = 0; i < 4; i++) {
+            rooms.put("room" + i, new Room("room" + i, "Konferensrum"));
+            roomRepository.save(rooms.get("room" + i));
+        }
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        BookingSystem bookingSystem = new BookingSystem(timeProvider, roomRepository, mock(NotificationService.class));
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalDateTime startTime = NOW.plusMinutes(1 + random.nextInt(5_000));
+                    if (bookingSystem.bookRoom("room" + random.nextInt(rooms.size()), startTime, startTime.plusMinutes(30))) {
+                        booked.incrementAndGet();
+                    }
+                    if (i % 10 == 0) {
+                        List<Booking> candidates = rooms.get("room" + random.nextInt(rooms.size())).getBookings();
+                        if (!candidates.isEmpty()
+                                && bookingSystem.cancelBooking(candidates.get(random.nextInt(candidates.size())).getId())) {
+                            cancelled.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int remaining = 0;
+        for (Room room : rooms.values()) {
+            List<Booking> bookings = room.getBookings();
+            remaining += bookings.size();
+            for (int i = 1; i < bookings.size(); i++) {
+                Booking previous = bookings.get(i - 1);
+                Booking current = bookings.get(i);
+                assertFalse(current.overlaps(previous.getStartTime(), previous.getEndTime()),
+                        "Overlapping bookings in " + room.getId() + ": " + previous.getId() + " and " + current.getId());
+            }
+        }
+        assertEquals(booked.get() - cancelled.get(), remaining);
+    }
+
+    @Test
+    @DisplayName("Snapshot readers should see multi-room bookings in all rooms or none while writers book")
+    void snapshotReadersShouldSeeConsistentVersions() throws Exception {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room0", "Konferensrum", BookingStorage.SNAPSHOT));
+        roomRepository.save(new Room("room1", "Konferensrum", BookingStorage.SNAPSHOT));
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        BookingSystem bookingSystem = new BookingSystem(timeProvider, roomRepository, mock(NotificationService.class));
+        bookingSystem.snapshot();
+
+        AtomicInteger booked = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            int writer = t;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD / 4; i++) {
+                    LocalDateTime startTime = NOW.plusHours(1 + (long) i * THREADS + writer);
+                    LocalDateTime endTime = startTime.plusMinutes(30);
+                    if (bookingSystem.bookRooms(List.of(new BookingRequest("room0", startTime, endTime),
+                            new BookingRequest("room1", startTime, endTime)))) {
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int t = 0; t < THREADS / 2; t++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                int previous = 0;
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    RepositorySnapshot snapshot = bookingSystem.snapshot();
+                    int first = snapshot.getRoom("room0").orElseThrow().getBookings().size();
+                    int second = snapshot.getRoom("room1").orElseThrow().getBookings().size();
+                    assertEquals(first, second, "Half of a multi-room booking was visible");
+                    assertTrue(first >= previous, "A later snapshot went back in time");
+                    previous = first;
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : writers) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        for (Future<?> future : readers) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        RepositorySnapshot last = bookingSystem.snapshot();
+        assertEquals(booked.get(), last.getRoom("room0").orElseThrow().getBookings().size());
+        assertEquals(List.of("room0", "room1"),
+                last.getAvailableRooms(NOW, NOW.plusMinutes(30)).stream().map(RoomSnapshot::getId).toList());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -214,8 +215,7 @@ public class BookingSystemTest {
         when(mockRoom.hasBooking(bookingId)).thenReturn(true);
         when(mockRoom.getBooking(bookingId)).thenReturn(mockBooking);
 
-        List<Room> rooms = Arrays.asList(mockRoom);
-        when(roomRepository.findAll()).thenReturn(rooms);
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(mockRoom));
 
         boolean result = bookingSystem.cancelBooking(bookingId);
         assertTrue(result);
@@ -226,12 +226,12 @@ public class BookingSystemTest {
     @DisplayName("Cancel booking should return false if no room with the booking ID exists")
     public void cancelBookingRoomNotFound() {
         String bookingId = "booking123";
-        when(roomRepository.findAll()).thenReturn(Collections.emptyList());
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.empty());
         boolean result = bookingSystem.cancelBooking(bookingId);
 
         assertFalse(result, "Result should be false if no room with the bookingId exists");
 
-        verify(roomRepository).findAll();
+        verify(roomRepository).findByBookingId(bookingId);
     }
 
     @Test
@@ -248,8 +248,7 @@ public class BookingSystemTest {
         when(mockRoom.hasBooking(bookingId)).thenReturn(true);
         when(mockRoom.getBooking(bookingId)).thenReturn(mockBooking);
 
-        List<Room> rooms = Arrays.asList(mockRoom);
-        when(roomRepository.findAll()).thenReturn(rooms);
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(mockRoom));
 
         Exception exception = assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking(bookingId));
         assertEquals("Kan inte avboka påbörjad eller avslutad bokning", exception.getMessage());
@@ -269,12 +268,235 @@ public class BookingSystemTest {
         when(mockRoom.hasBooking(bookingId)).thenReturn(true);
         when(mockRoom.getBooking(bookingId)).thenReturn(mockBooking);
 
-        List<Room> rooms = Arrays.asList(mockRoom);
-        when(roomRepository.findAll()).thenReturn(rooms);
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(mockRoom));
 
         boolean result = bookingSystem.cancelBooking(bookingId);
 
         assertTrue(result, "Cancel booking should return true even if notification fails");
         verify(notificationService).sendCancellationConfirmation(mockBooking);
     }
+
+    @Test
+    @DisplayName("Cancelling a booking made through the system should use the booking index instead of scanning rooms")
+    public void cancelBookingShouldUseBookingIndex() throws NotificationException {
+        LocalDateTime startTime = LocalDateTime.of(2026, 7, 1, 12, 0, 0);
+        Room room = new Room("room1", "Konferensrum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+        bookingSystem.bookRoom("room1", startTime, startTime.plusHours(1));
+        ArgumentCaptor<Booking> booked = ArgumentCaptor.forClass(Booking.class);
+        verify(notificationService).sendBookingConfirmation(booked.capture());
+        String bookingId = booked.getValue().getId();
+
+        assertTrue(bookingSystem.cancelBooking(bookingId));
+        assertFalse(room.hasBooking(bookingId));
+        verify(roomRepository, never()).findAll();
+        verify(roomRepository, never()).findByBookingId(anyString());
+    }
+
+    @Test
+    @DisplayName("After a restart the booking index should be rebuilt once instead of scanning rooms on every miss")
+    public void bookingIndexShouldBeRebuiltOnceAfterRestart() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        LocalDateTime startTime = LocalDateTime.of(2026, 7, 1, 12, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            Room room = new Room("room" + i, "Konferensrum");
+            room.addBooking(new Booking("booking" + i, room.getId(), startTime, startTime.plusHours(1)));
+            repository.save(room);
+        }
+        BookingSystem restarted = new BookingSystem(timeProvider, repository, notificationService);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(restarted.cancelBooking("booking" + i));
+        }
+
+        assertEquals(1, repository.findAllCalls.get());
+        assertFalse(restarted.cancelBooking("booking0"));
+    }
+
+    @Test
+    @DisplayName("Paged available rooms should be ordered by room id and continue after the cursor")
+    public void pagedAvailableRoomsShouldBeOrderedByIdAndContinueAfterCursor() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+        LocalDateTime endTime = startTime.plusHours(1);
+        Room bookedRoom = new Room("room2", "Konferensrum");
+        bookedRoom.addBooking(new Booking("booking1", "room2", startTime, endTime));
+        when(roomRepository.findAll()).thenReturn(List.of(
+                new Room("room4", "Konferensrum"), bookedRoom, new Room("room1", "Konferensrum"),
+                new Room("room3", "Konferensrum"), new Room("room5", "Konferensrum")));
+
+        List<Room> firstPage = bookingSystem.getAvailableRooms(startTime, endTime, null, 2);
+        List<Room> secondPage = bookingSystem.getAvailableRooms(startTime, endTime, firstPage.get(1).getId(), 2);
+
+        assertEquals(List.of("room1", "room3"), firstPage.stream().map(Room::getId).toList());
+        assertEquals(List.of("room4", "room5"), secondPage.stream().map(Room::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Paged available rooms should stay deterministic for large inventories")
+    public void pagedAvailableRoomsShouldStayDeterministicForLargeInventories() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+        LocalDateTime endTime = startTime.plusHours(1);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Room room = new Room(String.format("room%05d", i), "Konferensrum");
+            if (i % 3 != 0) {
+                room.addBooking(new Booking("booking" + i, room.getId(), startTime, endTime));
+            }
+            rooms.add(room);
+        }
+        Collections.shuffle(rooms, new Random(7));
+        when(roomRepository.findAll()).thenReturn(rooms);
+
+        List<Room> page = bookingSystem.getAvailableRooms(startTime, endTime, "room00100", 20);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 102; expected.size() < 20; i += 3) {
+            expected.add(String.format("room%05d", i));
+        }
+        assertEquals(expected, page.stream().map(Room::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Later pages should not reload the rooms, and added rooms should join the id order")
+    public void laterPagesShouldNotReloadRooms() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+        when(roomRepository.findAll()).thenReturn(List.of(
+                new Room("room3", "Konferensrum"), new Room("room1", "Konferensrum")));
+
+        List<Room> firstPage = bookingSystem.getAvailableRooms(startTime, startTime.plusHours(1), null, 1);
+        bookingSystem.addRoom(new Room("room2", "Grupprum"));
+        List<Room> secondPage = bookingSystem.getAvailableRooms(startTime, startTime.plusHours(1), "room1", 5);
+
+        assertEquals(List.of("room1"), firstPage.stream().map(Room::getId).toList());
+        assertEquals(List.of("room2", "room3"), secondPage.stream().map(Room::getId).toList());
+        verify(roomRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Paged available rooms requires a positive limit")
+    public void pagedAvailableRoomsRequiresPositiveLimit() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.getAvailableRooms(startTime, startTime.plusHours(1), null, 0));
+        assertEquals("Antal rum per sida måste vara minst 1", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Bulk booking should book every slot and save each room once")
+    public void bulkBookingShouldBookEverySlotAndSaveEachRoomOnce() throws NotificationException {
+        LocalDateTime startTime = LocalDateTime.of(2026, 6, 1, 9, 0, 0);
+        Room room1 = new Room("room1", "Konferensrum");
+        Room room2 = new Room("room2", "Konferensrum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+
+        List<BookingRequest> requests = new ArrayList<>();
+        for (int week = 0; week < 10; week++) {
+            requests.add(new BookingRequest("room1", startTime.plusWeeks(week), startTime.plusWeeks(week).plusHours(1)));
+            requests.add(new BookingRequest("room2", startTime.plusWeeks(week), startTime.plusWeeks(week).plusHours(1)));
+        }
+
+        assertTrue(bookingSystem.bookRooms(requests));
+        assertEquals(10, room1.getBookings().size());
+        assertEquals(10, room2.getBookings().size());
+        verify(roomRepository).save(room1);
+        verify(roomRepository).save(room2);
+        verify(notificationService, times(20)).sendBookingConfirmation(any(Booking.class));
+    }
+
+    @Test
+    @DisplayName("Bulk booking should book nothing when one slot conflicts")
+    public void bulkBookingShouldBookNothingWhenOneSlotConflicts() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 6, 1, 9, 0, 0);
+        Room room1 = new Room("room1", "Konferensrum");
+        Room room2 = new Room("room2", "Konferensrum");
+        room2.addBooking(new Booking("existing", "room2", startTime.plusWeeks(1), startTime.plusWeeks(1).plusHours(1)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+
+        boolean result = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime.plusWeeks(1), startTime.plusWeeks(1).plusHours(1))));
+
+        assertFalse(result);
+        assertTrue(room1.getBookings().isEmpty());
+        assertEquals(1, room2.getBookings().size());
+        verify(roomRepository, never()).save(any(Room.class));
+    }
+
+    @Test
+    @DisplayName("Bulk booking should reject slots that overlap each other")
+    public void bulkBookingShouldRejectSlotsThatOverlapEachOther() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 6, 1, 9, 0, 0);
+        Room room1 = new Room("room1", "Konferensrum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+
+        boolean result = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime.plusHours(1), startTime.plusHours(2)),
+                new BookingRequest("room1", startTime, startTime.plusHours(1))));
+
+        assertFalse(result);
+        assertTrue(room1.getBookings().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Bulk booking should roll back rooms already saved when a later save fails")
+    public void bulkBookingShouldRollBackWhenSaveFails() {
+        LocalDateTime startTime = LocalDateTime.of(2026, 6, 1, 9, 0, 0);
+        Room room1 = new Room("room1", "Konferensrum");
+        Room room2 = new Room("room2", "Konferensrum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+        doThrow(new IllegalStateException("Databasen svarar inte")).when(roomRepository).save(room2);
+
+        assertThrows(IllegalStateException.class, () -> bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime, startTime.plusHours(1)))));
+
+        assertTrue(room1.getBookings().isEmpty());
+        assertTrue(room2.getBookings().isEmpty());
+        verify(roomRepository, times(2)).save(room1);
+    }
+
+    @Test
+    @DisplayName("Archiving should be a separate maintenance step that saves the rooms it changes")
+    public void archivingShouldBeSeparateMaintenanceStep() {
+        Room room = new Room("room1", "Konferensrum");
+        LocalDateTime past = LocalDateTime.of(2024, 11, 5, 10, 0);
+        room.addBooking(new Booking("old", "room1", past, past.plusHours(1)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(roomRepository.findAll()).thenReturn(List.of(room));
+
+        assertTrue(bookingSystem.bookRoom("room1", LocalDateTime.of(2025, 2, 3, 10, 0), LocalDateTime.of(2025, 2, 3, 11, 0)));
+        assertTrue(room.hasBooking("old"));
+
+        assertEquals(1, bookingSystem.archiveFinishedBookings());
+        assertEquals(0, bookingSystem.archiveFinishedBookings());
+
+        assertFalse(room.hasBooking("old"));
+        assertEquals(1, room.getBookings().size());
+        verify(roomRepository, times(2)).save(room);
+        List<Booking> history = bookingSystem.getBookingHistory("room1", past.minusDays(1), past.plusDays(1));
+        assertEquals(1, history.size());
+        assertEquals("old", history.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Cancelling an archived booking should be rejected like any other finished booking")
+    public void cancellingArchivedBookingShouldBeRejected() {
+        Room room = new Room("room1", "Konferensrum");
+        LocalDateTime past = LocalDateTime.of(2024, 11, 5, 10, 0);
+        room.addBooking(new Booking("old", "room1", past, past.plusHours(1)));
+        when(roomRepository.findAll()).thenReturn(List.of(room));
+        when(roomRepository.findByBookingId("old")).thenReturn(Optional.of(room));
+
+        assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking("old"));
+        bookingSystem.archiveFinishedBookings();
+
+        Exception exception = assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking("old"));
+        assertEquals("Kan inte avboka påbörjad eller avslutad bokning", exception.getMessage());
+    }
 }
@@ -0,0 +1,222 @@
+import com.example.Booking;
+import com.example.CachingRoomRepository;
+import com.example.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingRoomRepositoryTest {
+    private InMemoryRoomRepository backingStore;
+
+    @BeforeEach
+    void setUp() {
+        backingStore = new InMemoryRoomRepository();
+        for (int i = 0; i < 10; i++) {
+            backingStore.save(new Room("room" + i, "Konferensrum"));
+        }
+        backingStore.saveCalls.set(0);
+    }
+
+    @Test
+    @DisplayName("Repeated lookups should be served from the cache")
+    void repeatedLookupsShouldBeServedFromCache() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 5);
+
+        Room first = repository.findById("room1").orElseThrow();
+        Room second = repository.findById("room1").orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(1, backingStore.findByIdCalls.get());
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+    }
+
+    @Test
+    @DisplayName("The least recently used room should be evicted when the cache is full")
+    void leastRecentlyUsedRoomShouldBeEvicted() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 2);
+
+        repository.findById("room1");
+        repository.findById("room2");
+        repository.findById("room1");
+        repository.findById("room3");
+        repository.findById("room1");
+        repository.findById("room2");
+
+        assertEquals(2, repository.getEvictionCount());
+        assertEquals(4, backingStore.findByIdCalls.get());
+    }
+
+    @Test
+    @DisplayName("Write-behind should coalesce repeated saves of the same room into one write")
+    void writeBehindShouldCoalesceRepeatedSaves() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 100, true, 100);
+        Room room = repository.findById("room1").orElseThrow();
+
+        for (int i = 0; i < 50; i++) {
+            repository.save(room);
+        }
+        assertEquals(0, backingStore.saveCalls.get());
+        assertEquals(1, repository.getPendingWriteCount());
+
+        repository.close();
+        assertEquals(1, backingStore.saveCalls.get());
+        assertEquals(0, repository.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("Write-behind should flush when too many rooms are pending")
+    void writeBehindShouldFlushWhenTooManyRoomsArePending() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 100, true, 3);
+
+        repository.save(new Room("room1", "Konferensrum"));
+        repository.save(new Room("room2", "Konferensrum"));
+        assertEquals(0, backingStore.saveCalls.get());
+        repository.save(new Room("room3", "Konferensrum"));
+
+        assertEquals(3, backingStore.saveCalls.get());
+    }
+
+    @Test
+    @DisplayName("A pending room that was evicted should still be returned instead of the stale stored copy")
+    void pendingEvictedRoomShouldStillBeReturned() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 1, true, 100);
+        Room updated = new Room("room1", "Omdöpt rum");
+
+        repository.save(updated);
+        repository.findById("room2");
+
+        assertSame(updated, repository.findById("room1").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("A room being flushed should not be read stale from the store after it was evicted")
+    void roomBeingFlushedShouldNotBeReadStale() {
+        Room updated = new Room("room1", "Omdöpt rum");
+        Room[] seenDuringSave = new Room[1];
+        CachingRoomRepository[] repository = new CachingRoomRepository[1];
+        InMemoryRoomRepository slowStore = new InMemoryRoomRepository() {
+            @Override
+            public void save(Room room) {
+                // Körs mitt i flush, innan rummet har skrivits
+                if (repository[0] != null) {
+                    repository[0].findById("room2");
+                    seenDuringSave[0] = repository[0].findById("room1").orElseThrow();
+                }
+                super.save(room);
+            }
+        };
+        slowStore.save(new Room("room1", "Konferensrum"));
+        slowStore.save(new Room("room2", "Konferensrum"));
+        repository[0] = new CachingRoomRepository(slowStore, 1, true, 100);
+
+        repository[0].save(updated);
+        repository[0].flush();
+
+        assertSame(updated, seenDuringSave[0]);
+        assertEquals(0, repository[0].getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("Rooms that were not written when the store failed should stay pending")
+    void unwrittenRoomsShouldStayPendingAfterFailedFlush() {
+        boolean[] failing = {true};
+        InMemoryRoomRepository flakyStore = new InMemoryRoomRepository() {
+            @Override
+            public void save(Room room) {
+                if (failing[0] && room.getId().equals("room2")) {
+                    throw new IllegalStateException("Lagret svarar inte");
+                }
+                super.save(room);
+            }
+        };
+        CachingRoomRepository repository = new CachingRoomRepository(flakyStore, 100, true, 100);
+        repository.save(new Room("room1", "Konferensrum"));
+        repository.save(new Room("room2", "Konferensrum"));
+        repository.save(new Room("room3", "Konferensrum"));
+
+        assertThrows(IllegalStateException.class, repository::flush);
+        assertEquals(2, repository.getPendingWriteCount());
+        assertEquals(1, repository.getWriteCount());
+
+        failing[0] = false;
+        repository.flush();
+        assertEquals(0, repository.getPendingWriteCount());
+        assertEquals(3, repository.getWriteCount());
+        assertTrue(flakyStore.findById("room3").isPresent());
+    }
+
+    @Test
+    @DisplayName("Searches over all rooms or by booking id should see pending rooms without flushing")
+    void searchesShouldSeePendingRoomsWithoutFlushing() {
+        CachingRoomRepository repository = new CachingRoomRepository(backingStore, 100, true, 100);
+        Room updated = new Room("room1", "Omdöpt rum");
+        updated.addBooking(new Booking("b1", "room1", LocalDateTime.of(2026, 3, 2, 9, 0), LocalDateTime.of(2026, 3, 2, 10, 0)));
+        Room added = new Room("room10", "Nytt rum");
+        repository.save(updated);
+        repository.save(added);
+
+        List<Room> rooms = repository.findAll();
+
+        assertEquals(11, rooms.size());
+        assertTrue(rooms.contains(updated));
+        assertTrue(rooms.contains(added));
+        assertSame(updated, repository.findByBookingId("b1").orElseThrow());
+        assertEquals(0, backingStore.saveCalls.get());
+        assertEquals(2, repository.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("Concurrent flushes should write each pending room once")
+    void concurrentFlushesShouldWriteEachRoomOnce() throws Exception {
+        InMemoryRoomRepository slowStore = new InMemoryRoomRepository(2, TimeUnit.MILLISECONDS);
+        CachingRoomRepository repository = new CachingRoomRepository(slowStore, 100, true, 100);
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Room("room" + i, "Konferensrum"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> flushes = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            flushes.add(executor.submit(repository::flush));
+        }
+        for (Future<?> flush : flushes) {
+            flush.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(20, slowStore.saveCalls.get());
+        assertEquals(20, repository.getWriteCount());
+    }
+
+    @Test
+    @DisplayName("Without write-behind a room the store rejected should not be cached")
+    void rejectedRoomShouldNotBeCached() {
+        InMemoryRoomRepository failingStore = new InMemoryRoomRepository() {
+            @Override
+            public void save(Room room) {
+                if (room.getName().equals("Avvisat")) {
+                    throw new IllegalStateException("Lagret svarar inte");
+                }
+                super.save(room);
+            }
+        };
+        failingStore.save(new Room("room1", "Konferensrum"));
+        CachingRoomRepository repository = new CachingRoomRepository(failingStore, 100);
+
+        assertThrows(IllegalStateException.class, () -> repository.save(new Room("room1", "Avvisat")));
+
+        assertEquals("Konferensrum", repository.findById("room1").orElseThrow().getName());
+        assertEquals(0, repository.getWriteCount());
+    }
+}
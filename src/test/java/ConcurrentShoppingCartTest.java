@@ -0,0 +1,86 @@
+import com.example.payment.Money;
+import com.example.shopping.ConcurrentShoppingCart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentShoppingCartTest {
+    private static final int THREADS = 8;
+
+    private ConcurrentShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ConcurrentShoppingCart();
+    }
+
+    @Test
+    @DisplayName("Concurrent cart should price items like the plain cart")
+    void concurrentCartShouldPriceLikePlainCart() {
+        cart.addItem("cream of mushrooms", 25.50, 13, 0);
+        cart.addItem("cream of boar", 20.90, 3, 0);
+        assertEquals(394.20, cart.getTotalPrice());
+
+        cart.updateQuantity("cream of mushrooms", 0);
+        cart.removeItem("cream of boar");
+        cart.updateQuantity("cream of deer", 4);
+        assertEquals(0, cart.itemCount());
+        assertEquals(Money.ZERO, cart.getTotal());
+    }
+
+    @Test
+    @DisplayName("Cream of boar limit should apply to the merged quantity")
+    void creamOfBoarLimitShouldApplyToMergedQuantity() {
+        cart.addItem("cream of boar", 20.90, 4, 0);
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> cart.addItem("cream of boar", 20.90, 3, 0));
+        assertTrue(exception.getMessage().contains("6 cream of boars maximum per person"));
+        assertThrows(IllegalArgumentException.class, () -> cart.updateQuantity("cream of boar", 7));
+        assertEquals(4, cart.getQuantity("cream of boar"));
+        assertEquals(83.60, cart.getTotalPrice());
+    }
+
+    @Test
+    @DisplayName("Concurrent adds should never exceed the limit or lose a quantity")
+    void concurrentAddsShouldKeepLimitAndTotal() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    cart.addItem("cream of mushrooms", 25.50, 1, 10);
+                    try {
+                        cart.addItem("cream of boar", 20.90, 1, 0);
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(6, cart.getQuantity("cream of boar"));
+        assertEquals(THREADS * 1_000 - 6, rejected.get());
+        assertEquals(THREADS * 1_000, cart.getQuantity("cream of mushrooms"));
+        assertEquals(Money.ofMinorUnits(THREADS * 1_000 * 2295L + 6 * 2090L), cart.getTotal());
+    }
+}
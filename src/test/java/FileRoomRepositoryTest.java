@@ -0,0 +1,175 @@
+import com.example.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileRoomRepositoryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 9, 1, 9, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Rooms and bookings should survive a restart")
+    void roomsAndBookingsShouldSurviveRestart() {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3).plusNanos(5)));
+            repository.save(room);
+            room.removeBooking("b1");
+            repository.save(room);
+            repository.save(new Room("room2", "Aula"));
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertFalse(room.hasBooking("b1"));
+            assertEquals(START.plusHours(3).plusNanos(5), room.getBooking("b2").getEndTime());
+            assertEquals("Aula", reopened.findById("room2").orElseThrow().getName());
+            assertSame(room, reopened.findByBookingId("b2").orElseThrow());
+        }
+    }
+
+    @Test
+    @DisplayName("Recurring bookings and cancelled occurrences should survive a restart")
+    void recurringBookingsShouldSurviveRestart() {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new RecurringBooking("series", "room1", START, Duration.ofHours(1),
+                    Recurrence.times(Recurrence.Frequency.WEEKLY, 10)));
+            repository.save(room);
+            room.cancelOccurrence("series", START.plusWeeks(2));
+            repository.save(room);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertTrue(room.isAvailable(START.plusWeeks(2), START.plusWeeks(2).plusHours(1)));
+            assertFalse(room.isAvailable(START.plusWeeks(3), START.plusWeeks(3).plusHours(1)));
+            assertTrue(room.isAvailable(START.plusWeeks(10), START.plusWeeks(10).plusHours(1)));
+        }
+    }
+
+    @Test
+    @DisplayName("Saving a room with one new booking should only append that booking")
+    void savingOneNewBookingShouldOnlyAppendThatBooking() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            for (int i = 0; i < 1_000; i++) {
+                room.addBooking(new Booking("booking" + i, "room1", START.plusHours(2L * i), START.plusHours(2L * i + 1)));
+            }
+            repository.save(room);
+            repository.flush();
+            long before = logSize();
+
+            room.addBooking(new Booking("extra", "room1", START.minusHours(5), START.minusHours(4)));
+            repository.save(room);
+            repository.flush();
+
+            assertTrue(logSize() - before < 200, "Only one small record should be written");
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction should write a snapshot that restores the same state")
+    void compactionShouldWriteSnapshotThatRestoresSameState() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory, 4_096)) {
+            Room room = new Room("room1", "Konferensrum");
+            for (int i = 0; i < 500; i++) {
+                room.addBooking(new Booking("booking" + i, "room1", START.plusHours(2L * i), START.plusHours(2L * i + 1)));
+                repository.save(room);
+                if (i % 2 == 0) {
+                    room.removeBooking("booking" + i);
+                    repository.save(room);
+                }
+            }
+        }
+
+        assertTrue(Files.exists(directory.resolve("rooms.snapshot")));
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertEquals(250, room.getBookings().size());
+            assertTrue(room.hasBooking("booking499"));
+            assertFalse(room.hasBooking("booking498"));
+        }
+    }
+
+    @Test
+    @DisplayName("Rooms should keep their booking storage after a restart and a compaction")
+    void roomsShouldKeepBookingStorage() {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            repository.save(new Room("compact", "Konferensrum", BookingStorage.COMPACT));
+            repository.save(new Room("snapshot", "Aula", BookingStorage.SNAPSHOT));
+            repository.save(new Room("tree", "Grupprum"));
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory, 1)) {
+            assertEquals(BookingStorage.COMPACT, reopened.findById("compact").orElseThrow().getStorage());
+            Room snapshot = reopened.findById("snapshot").orElseThrow();
+            snapshot.addBooking(new Booking("b1", "snapshot", START, START.plusHours(1)));
+            reopened.save(snapshot);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            assertEquals(BookingStorage.COMPACT, reopened.findById("compact").orElseThrow().getStorage());
+            assertEquals(BookingStorage.SNAPSHOT, reopened.findById("snapshot").orElseThrow().getStorage());
+            assertEquals(BookingStorage.TREE, reopened.findById("tree").orElseThrow().getStorage());
+            assertTrue(reopened.findById("snapshot").orElseThrow().hasBooking("b1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Changes to a reopened room should be written without rewriting its other bookings")
+    void changesToReopenedRoomShouldBeWritten() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            for (int i = 0; i < 100; i++) {
+                room.addBooking(new Booking("booking" + i, "room1", START.plusHours(2L * i), START.plusHours(2L * i + 1)));
+            }
+            repository.save(room);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            long before = logSize();
+            Room room = reopened.findById("room1").orElseThrow();
+            room.removeBooking("booking0");
+            room.addBooking(new Booking("booking1", "room1", START.minusHours(3), START.minusHours(2)));
+            reopened.save(room);
+            reopened.flush();
+            assertTrue(logSize() - before < 300, "Only the changed bookings should be written");
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertFalse(room.hasBooking("booking0"));
+            assertEquals(START.minusHours(3), room.getBooking("booking1").getStartTime());
+            assertEquals(99, room.getBookings().size());
+        }
+    }
+
+    // Loggfilen är förlängd av minnesmappningen, så räkna bara bytes fram till den nollfyllda svansen
+    private long logSize() throws IOException {
+        long used = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".log")).toList()) {
+                byte[] bytes = Files.readAllBytes(file);
+                int end = bytes.length;
+                while (end > 0 && bytes[end - 1] == 0) {
+                    end--;
+                }
+                used += end;
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,124 @@
+import com.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FreeSlotTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+    private static final LocalDateTime DAY = NOW.plusDays(1);
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        roomRepository = new InMemoryRoomRepository();
+        room = new Room("room1", "Konferensrum");
+        roomRepository.save(room);
+        roomRepository.save(new Room("room2", "Aula"));
+        bookingSystem = new BookingSystem(timeProvider, roomRepository, mock(NotificationService.class));
+    }
+
+    @Test
+    @DisplayName("Free slots should be the gaps between bookings with inclusive boundaries")
+    void freeSlotsShouldBeGapsBetweenBookings() {
+        room.addBooking(new Booking("b1", "room1", DAY.plusHours(9), DAY.plusHours(10)));
+        room.addBooking(new Booking("b2", "room1", DAY.plusHours(10).plusMinutes(30), DAY.plusHours(12)));
+
+        List<FreeSlot> slots = bookingSystem.findFreeSlots("room1", DAY.plusHours(8), DAY.plusHours(17),
+                Duration.ofMinutes(45), 10);
+
+        assertEquals(2, slots.size());
+        assertEquals(DAY.plusHours(8), slots.get(0).getStartTime());
+        assertEquals(DAY.plusHours(9).minusNanos(1), slots.get(0).getEndTime());
+        assertEquals(DAY.plusHours(12).plusNanos(1), slots.get(1).getStartTime());
+        assertEquals(DAY.plusHours(17), slots.get(1).getEndTime());
+        assertTrue(bookingSystem.bookRoom("room1", slots.get(1).getStartTime(), slots.get(1).getStartTime().plusMinutes(45)));
+    }
+
+    @Test
+    @DisplayName("Free slots should match a probe with isAvailable for random calendars")
+    void freeSlotsShouldMatchProbing() {
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = DAY.plusMinutes(random.nextInt(60 * 24 * 14));
+            room.addBooking(new Booking("b" + i, "room1", start, start.plusMinutes(5 + random.nextInt(90))));
+        }
+        room.addBooking(new RecurringBooking("series", "room1", DAY.plusHours(7), Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 14)));
+        LocalDateTime windowStart = DAY;
+        LocalDateTime windowEnd = DAY.plusDays(14);
+        Duration duration = Duration.ofMinutes(40);
+
+        List<FreeSlot> slots = bookingSystem.findFreeSlots("room1", windowStart, windowEnd, duration, Integer.MAX_VALUE);
+
+        for (FreeSlot slot : slots) {
+            assertTrue(slot.getDuration().compareTo(duration) >= 0);
+            assertTrue(room.isAvailable(slot.getStartTime(), slot.getEndTime()));
+            if (slot.getStartTime().isAfter(windowStart)) {
+                assertFalse(room.isAvailable(slot.getStartTime().minusNanos(1), slot.getEndTime()));
+            }
+            if (slot.getEndTime().isBefore(windowEnd)) {
+                assertFalse(room.isAvailable(slot.getStartTime(), slot.getEndTime().plusNanos(1)));
+            }
+        }
+        // Varje minut där en bokning av rätt längd får plats ska ligga i någon lucka
+        for (LocalDateTime probe = windowStart; !probe.plus(duration).isAfter(windowEnd); probe = probe.plusMinutes(1)) {
+            LocalDateTime probeStart = probe;
+            boolean free = room.isAvailable(probeStart, probeStart.plus(duration));
+            boolean covered = slots.stream().anyMatch(slot -> !probeStart.isBefore(slot.getStartTime())
+                    && !probeStart.plus(duration).isAfter(slot.getEndTime()));
+            assertEquals(free, covered, "Mismatch at " + probeStart);
+        }
+    }
+
+    @Test
+    @DisplayName("Free slots should not start before the current time")
+    void freeSlotsShouldNotStartInThePast() {
+        List<FreeSlot> slots = bookingSystem.findFreeSlots("room1", NOW.minusDays(1), NOW.plusHours(1),
+                Duration.ofMinutes(30), 5);
+
+        assertEquals(1, slots.size());
+        assertEquals(NOW, slots.get(0).getStartTime());
+    }
+
+    @Test
+    @DisplayName("Free slots across rooms should be merged by start time and limited")
+    void freeSlotsAcrossRoomsShouldBeMerged() {
+        room.addBooking(new Booking("b1", "room1", DAY.plusHours(8), DAY.plusHours(9)));
+        roomRepository.findById("room2").orElseThrow()
+                .addBooking(new Booking("b2", "room2", DAY.plusHours(8), DAY.plusHours(10)));
+
+        List<FreeSlot> slots = bookingSystem.findFreeSlots(List.of("room2", "room1"), DAY.plusHours(8),
+                DAY.plusHours(12), Duration.ofMinutes(30), 2);
+
+        assertEquals(2, slots.size());
+        assertEquals("room1", slots.get(0).getRoomId());
+        assertEquals(DAY.plusHours(9).plusNanos(1), slots.get(0).getStartTime());
+        assertEquals("room2", slots.get(1).getRoomId());
+        assertEquals(DAY.plusHours(10).plusNanos(1), slots.get(1).getStartTime());
+    }
+
+    @Test
+    @DisplayName("Invalid slot searches should throw")
+    void invalidSlotSearchesShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.findFreeSlots("room1", DAY, DAY.plusHours(1), Duration.ofMinutes(-1), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.findFreeSlots("room1", DAY, DAY.plusHours(1), Duration.ofMinutes(1), 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.findFreeSlots("missing", DAY, DAY.plusHours(1), Duration.ofMinutes(1), 1));
+    }
+}
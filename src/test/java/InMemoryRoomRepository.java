@@ -0,0 +1,55 @@
+import com.example.Room;
+import com.example.RoomRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Fejkat lagringslager med valfri fördröjning per anrop, för tester och mätningar
+public class InMemoryRoomRepository implements RoomRepository {
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final long latencyNanos;
+    final AtomicInteger findByIdCalls = new AtomicInteger();
+    final AtomicInteger findAllCalls = new AtomicInteger();
+    final AtomicInteger saveCalls = new AtomicInteger();
+
+    public InMemoryRoomRepository() {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+
+    public InMemoryRoomRepository(long latency, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        findByIdCalls.incrementAndGet();
+        pause();
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        findAllCalls.incrementAndGet();
+        pause();
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public void save(Room room) {
+        saveCalls.incrementAndGet();
+        pause();
+        rooms.put(room.getId(), room);
+    }
+
+    private void pause() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import com.example.payment.Money;
+import com.example.shopping.ShoppingCart;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @ParameterizedTest
+    @DisplayName("Converting a price should round half up on its decimal form")
+    @CsvSource({
+            "25.50, 2550",
+            "20.90, 2090",
+            "1.005, 101",
+            "1.004, 100",
+            "-1.005, -101",
+            "0.1, 10",
+            "123456789.99, 12345678999"
+    })
+    void convertingShouldRoundHalfUp(double amount, long expectedMinorUnits) {
+        assertEquals(expectedMinorUnits, Money.minorUnitsOf(amount));
+        assertEquals(new BigDecimal(Double.toString(amount)).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue(),
+                Money.of(amount).getMinorUnits());
+    }
+
+    @ParameterizedTest
+    @DisplayName("Discounts should round half up to whole minor units")
+    @CsvSource({
+            "3050, 30, 2135",
+            "1850, 50, 925",
+            "999, 12.5, 874",
+            "5, 50, 3",
+            "-5, 50, -3",
+            "1999, 0, 1999",
+            "1999, 100, 0",
+            "100000, 33.333, 66667",
+            "100000, 33.3333333, 66667",
+            "1000, 0.005, 1000",
+            "1000, 0.05, 1000",
+            "20000, 0.005, 19999"
+    })
+    void discountsShouldRoundHalfUp(long minorUnits, double percentage, long expected) {
+        assertEquals(expected, Money.discountedMinorUnitsOf(minorUnits, percentage));
+    }
+
+    @ParameterizedTest
+    @DisplayName("A price with more than two decimals should be rounded only after the discount")
+    @CsvSource({
+            "1.005, 50, 50",
+            "1.015, 50, 51",
+            "0.125, 20, 10",
+            "19.999, 33.333, 1333",
+            "25.50, 10, 2295"
+    })
+    void unroundedPricesShouldBeDiscountedFirst(double price, double percentage, long expected) {
+        assertEquals(expected, Money.discountedMinorUnitsOf(price, percentage));
+        assertEquals(new BigDecimal(Double.toString(price))
+                        .multiply(BigDecimal.ONE.subtract(new BigDecimal(Double.toString(percentage)).movePointLeft(2)))
+                        .setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue(),
+                expected);
+    }
+
+    @Test
+    @DisplayName("Sums should stay exact where doubles drift")
+    void sumsShouldStayExact() {
+        Money total = Money.ZERO;
+        double drifting = 0;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.of(0.1));
+            drifting += 0.1;
+        }
+        assertEquals(Money.ofMinorUnits(100), total);
+        assertNotEquals(1.0, drifting);
+        assertEquals("1.00", total.toString());
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItem("cream of salad", Money.of(new BigDecimal("0.10")), 10, 0);
+        assertEquals(Money.ofMinorUnits(100), cart.getTotal());
+        assertEquals(1.0, cart.getTotalPrice());
+    }
+}
@@ -0,0 +1,112 @@
+import com.example.Booking;
+import com.example.BookingSystem;
+import com.example.NotificationService;
+import com.example.OccupancyIndex;
+import com.example.Room;
+import com.example.RoomRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OccupancyIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 5, 4, 8, 0, 0);
+
+    @Test
+    @DisplayName("Index should see bookings that existed when it was built")
+    void indexShouldSeeExistingBookings() {
+        Room bookedRoom = new Room("room1", "Konferensrum");
+        bookedRoom.addBooking(new Booking("b1", "room1", BASE.plusMinutes(10), BASE.plusMinutes(20)));
+        Room freeRoom = new Room("room2", "Konferensrum");
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAll()).thenReturn(List.of(bookedRoom, freeRoom));
+
+        OccupancyIndex index = new OccupancyIndex(roomRepository);
+
+        assertEquals(List.of(freeRoom), index.findAvailableRooms(BASE.plusMinutes(20), BASE.plusMinutes(25)));
+        assertEquals(List.of(bookedRoom, freeRoom), index.findAvailableRooms(BASE.plusMinutes(21), BASE.plusMinutes(25)));
+    }
+
+    @Test
+    @DisplayName("Index should match a full scan while bookings are added and removed")
+    void indexShouldMatchFullScanWhileBookingsChange() {
+        Random random = new Random(11);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rooms.add(new Room("room" + i, "Konferensrum"));
+        }
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAll()).thenReturn(rooms);
+        OccupancyIndex index = new OccupancyIndex(roomRepository);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Room room = rooms.get(random.nextInt(rooms.size()));
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(20_000));
+            Booking booking = new Booking("b" + i, room.getId(), start, start.plusMinutes(1 + random.nextInt(90)));
+            room.addBooking(booking);
+            index.onBookingAdded(room, booking);
+            bookings.add(booking);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            Booking booking = bookings.remove(random.nextInt(bookings.size()));
+            Room room = rooms.stream().filter(r -> r.getId().equals(booking.getRoomId())).findFirst().orElseThrow();
+            room.removeBooking(booking.getId());
+            index.onBookingRemoved(room, booking);
+        }
+
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(20_000)).plusSeconds(random.nextInt(60));
+            LocalDateTime end = start.plusMinutes(random.nextInt(180));
+            List<Room> expected = rooms.stream().filter(room -> room.isAvailable(start, end)).toList();
+            assertEquals(expected, index.findAvailableRooms(start, end), "Mismatch for " + start + " - " + end);
+        }
+    }
+
+    @Test
+    @DisplayName("A room added after the index was built should be found with its bookings")
+    void roomAddedLaterShouldBeIndexed() {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Konferensrum"));
+        OccupancyIndex index = new OccupancyIndex(roomRepository);
+        BookingSystem bookingSystem = new BookingSystem(() -> BASE, roomRepository, mock(NotificationService.class), index);
+
+        Room laterRoom = new Room("room2", "Grupprum");
+        laterRoom.addBooking(new Booking("b1", "room2", BASE.plusMinutes(10), BASE.plusMinutes(20)));
+        bookingSystem.addRoom(laterRoom);
+        bookingSystem.addRoom(new Room("room3", "Grupprum"));
+        int findAllCalls = roomRepository.findAllCalls.get();
+
+        assertEquals(List.of("room1", "room3"), index.findAvailableRooms(BASE.plusMinutes(15), BASE.plusMinutes(25))
+                .stream().map(Room::getId).toList());
+        assertEquals(List.of("room1", "room2", "room3"), index.findAvailableRooms(BASE.plusMinutes(30), BASE.plusMinutes(45))
+                .stream().map(Room::getId).toList());
+        assertSame(laterRoom, roomRepository.findById("room2").orElseThrow());
+        assertEquals(findAllCalls, roomRepository.findAllCalls.get());
+    }
+
+    @Test
+    @DisplayName("Archived bookings should no longer mark their room as busy in the index")
+    void archivedBookingsShouldNotMarkRoomBusy() {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        Room room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("b1", "room1", BASE.plusMinutes(10), BASE.plusMinutes(20)));
+        roomRepository.save(room);
+        OccupancyIndex index = new OccupancyIndex(roomRepository);
+        BookingSystem bookingSystem = new BookingSystem(() -> BASE.plusMonths(2), roomRepository,
+                mock(NotificationService.class), index);
+
+        assertTrue(index.findAvailableRooms(BASE.plusMinutes(15), BASE.plusMinutes(25)).isEmpty());
+        assertEquals(1, bookingSystem.archiveFinishedBookings());
+
+        assertTrue(room.isAvailable(BASE.plusMinutes(15), BASE.plusMinutes(25)));
+        assertEquals(List.of(room), index.findAvailableRooms(BASE.plusMinutes(15), BASE.plusMinutes(25)));
+    }
+}
@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
@@ -106,4 +107,24 @@ public class PaymentProcessorTest {
         verify(emailService).sendPaymentConfirmation(eq("user@example.com"), eq(60.2));
     }
 
+    @Test
+    @DisplayName("A Money payment should be charged as a double and stored with exact cents")
+    void moneyPaymentShouldBeStoredWithExactCents() throws SQLException {
+        when(paymentApi.charge("sk_test_123456", 25.5)).thenReturn(response);
+        boolean result = paymentProcessor.processPayment(Money.of(new BigDecimal("25.50")));
+        assertTrue(result);
+        verify(preparedStatement).executeUpdate("INSERT INTO payments (amount, status) VALUES (25.50, 'SUCCESS')");
+        verify(emailService).sendPaymentConfirmation("user@example.com", 25.5);
+    }
+
+    @Test
+    @DisplayName("A double payment should be charged and stored without rounding to whole cents")
+    void doublePaymentShouldNotBeRounded() throws SQLException {
+        when(paymentApi.charge("sk_test_123456", 10.005)).thenReturn(response);
+        boolean result = paymentProcessor.processPayment(10.005);
+        assertTrue(result);
+        verify(preparedStatement).executeUpdate("INSERT INTO payments (amount, status) VALUES (10.005, 'SUCCESS')");
+        verify(emailService).sendPaymentConfirmation("user@example.com", 10.005);
+    }
+
 }
@@ -0,0 +1,153 @@
+import com.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class RecurringBookingTest {
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2026, 2, 2, 10, 0, 0);
+
+    @Mock TimeProvider timeProvider;
+    @Mock RoomRepository roomRepository;
+    @Mock NotificationService notificationService;
+
+    @InjectMocks
+    BookingSystem bookingSystem;
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.of(2026, 1, 1, 8, 0, 0));
+        room = new Room("room1", "Konferensrum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(roomRepository.findByBookingId(anyString())).thenReturn(Optional.of(room));
+    }
+
+    @Test
+    @DisplayName("Lazy overlap check should match the expanded occurrences")
+    void lazyOverlapShouldMatchExpandedOccurrences() {
+        Random random = new Random(3);
+        for (Recurrence.Frequency frequency : Recurrence.Frequency.values()) {
+            RecurringBooking series = new RecurringBooking("series", "room1", FIRST_START, Duration.ofMinutes(90),
+                    new Recurrence(frequency, 2, null, 40));
+            List<Booking> expanded = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                LocalDateTime start = switch (frequency) {
+                    case DAILY -> FIRST_START.plusDays(2L * i);
+                    case WEEKLY -> FIRST_START.plusWeeks(2L * i);
+                    case MONTHLY -> FIRST_START.plusMonths(2L * i);
+                };
+                expanded.add(new Booking("series", "room1", start, start.plusMinutes(90)));
+            }
+
+            for (int i = 0; i < 2_000; i++) {
+                LocalDateTime start = FIRST_START.minusDays(5).plusMinutes(random.nextInt(60 * 24 * 365 * 7));
+                LocalDateTime end = start.plusMinutes(random.nextInt(300));
+                boolean expected = expanded.stream().anyMatch(booking -> booking.overlaps(start, end));
+                assertEquals(expected, series.overlaps(start, end), frequency + " mismatch for " + start + " - " + end);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Occurrence boundaries should be inclusive like Booking.overlaps")
+    void occurrenceBoundariesShouldBeInclusive() {
+        RecurringBooking series = new RecurringBooking("series", "room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.WEEKLY, 3));
+
+        assertTrue(series.overlaps(FIRST_START.plusWeeks(2).plusHours(1), FIRST_START.plusWeeks(2).plusHours(2)));
+        assertFalse(series.overlaps(FIRST_START.plusWeeks(2).plusHours(1).plusNanos(1), FIRST_START.plusWeeks(2).plusHours(2)));
+        assertFalse(series.overlaps(FIRST_START.plusWeeks(3), FIRST_START.plusWeeks(3).plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("Booking a series should block its occurrences but not the gaps between them")
+    void bookingSeriesShouldBlockOccurrences() {
+        assertTrue(bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.until(Recurrence.Frequency.WEEKLY, FIRST_START.plusYears(1))));
+
+        assertFalse(bookingSystem.bookRoom("room1", FIRST_START.plusWeeks(20), FIRST_START.plusWeeks(20).plusMinutes(30)));
+        assertTrue(bookingSystem.bookRoom("room1", FIRST_START.plusWeeks(20).plusDays(1), FIRST_START.plusWeeks(20).plusDays(1).plusHours(1)));
+        assertTrue(bookingSystem.bookRoom("room1", FIRST_START.plusYears(2), FIRST_START.plusYears(2).plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("A series that conflicts with an existing booking should not be booked")
+    void conflictingSeriesShouldNotBeBooked() {
+        room.addBooking(new Booking("existing", "room1", FIRST_START.plusWeeks(4), FIRST_START.plusWeeks(4).plusMinutes(15)));
+
+        assertFalse(bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.WEEKLY, 10)));
+        assertTrue(room.getRecurringBookings().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Cancelling one occurrence should free only that slot")
+    void cancellingOneOccurrenceShouldFreeOnlyThatSlot() {
+        bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.WEEKLY, 10));
+        String seriesId = room.getRecurringBookings().get(0).getId();
+
+        assertTrue(bookingSystem.cancelBooking(seriesId, FIRST_START.plusWeeks(3)));
+
+        assertTrue(room.isAvailable(FIRST_START.plusWeeks(3), FIRST_START.plusWeeks(3).plusHours(1)));
+        assertFalse(room.isAvailable(FIRST_START.plusWeeks(4), FIRST_START.plusWeeks(4).plusHours(1)));
+        assertThrows(IllegalArgumentException.class, () -> bookingSystem.cancelBooking(seriesId, FIRST_START.plusWeeks(3)));
+    }
+
+    @Test
+    @DisplayName("Cancelling the series should free every occurrence")
+    void cancellingSeriesShouldFreeEveryOccurrence() {
+        bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 30));
+        String seriesId = room.getRecurringBookings().get(0).getId();
+
+        assertTrue(bookingSystem.cancelBooking(seriesId));
+
+        assertFalse(room.hasBooking(seriesId));
+        assertTrue(room.isAvailable(FIRST_START, FIRST_START.plusDays(30)));
+    }
+
+    @Test
+    @DisplayName("Cancelling a started series should cancel only the occurrences that have not started")
+    void cancellingStartedSeriesShouldKeepPastOccurrences() {
+        bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 30));
+        String seriesId = room.getRecurringBookings().get(0).getId();
+        when(timeProvider.getCurrentTime()).thenReturn(FIRST_START.plusDays(10).plusMinutes(30));
+
+        assertTrue(bookingSystem.cancelBooking(seriesId));
+
+        assertTrue(room.hasBooking(seriesId));
+        assertEquals(11, room.getBookings(FIRST_START, FIRST_START.plusDays(30)).size());
+        assertFalse(room.isAvailable(FIRST_START.plusDays(10), FIRST_START.plusDays(10).plusMinutes(15)));
+        assertTrue(room.isAvailable(FIRST_START.plusDays(11), FIRST_START.plusDays(30)));
+        assertThrows(IllegalStateException.class, () -> bookingSystem.cancelBooking(seriesId));
+    }
+
+    @Test
+    @DisplayName("A very long series should be checked without expanding every occurrence")
+    void longSeriesShouldBeCheckedWithoutExpansion() {
+        room.addBooking(new Booking("existing", "room1", FIRST_START.plusDays(5_000_000), FIRST_START.plusDays(5_000_000).plusMinutes(15)));
+
+        assertFalse(bookingSystem.bookRecurringRoom("room1", FIRST_START, Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 10_000_000)));
+        assertTrue(bookingSystem.bookRecurringRoom("room1", FIRST_START.plusHours(2), Duration.ofHours(1),
+                Recurrence.times(Recurrence.Frequency.DAILY, 10_000_000)));
+    }
+}
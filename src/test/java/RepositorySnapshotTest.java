@@ -0,0 +1,57 @@
+import com.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RepositorySnapshotTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("tree", "Konferensrum"));
+        roomRepository.save(new Room("snapshot", "Konferensrum", BookingStorage.SNAPSHOT));
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        bookingSystem = new BookingSystem(timeProvider, roomRepository, mock(NotificationService.class));
+    }
+
+    @Test
+    @DisplayName("Writes to rooms of every storage kind should show up in the next snapshot")
+    void writesShouldShowUpInNextSnapshot() {
+        RepositorySnapshot before = bookingSystem.snapshot();
+
+        assertTrue(bookingSystem.bookRoom("tree", NOW.plusHours(1), NOW.plusHours(2)));
+        assertTrue(bookingSystem.bookRoom("tree", NOW.plusHours(3), NOW.plusHours(4)));
+        assertTrue(bookingSystem.bookRoom("snapshot", NOW.plusHours(1), NOW.plusHours(2)));
+
+        RepositorySnapshot after = bookingSystem.snapshot();
+        assertEquals(2, after.getRoom("tree").orElseThrow().getBookings().size());
+        assertEquals(1, after.getRoom("snapshot").orElseThrow().getBookings().size());
+        assertTrue(before.getRoom("tree").orElseThrow().getBookings().isEmpty());
+        assertSame(after, bookingSystem.snapshot());
+    }
+
+    @Test
+    @DisplayName("A room saved straight to the repository should join the snapshot once a search sees it")
+    void roomSavedLaterShouldJoinSnapshot() {
+        bookingSystem.snapshot();
+        roomRepository.save(new Room("later", "Grupprum"));
+        assertTrue(bookingSystem.snapshot().getRoom("later").isEmpty());
+
+        bookingSystem.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2));
+
+        assertEquals(List.of("later", "snapshot", "tree"),
+                bookingSystem.snapshot().getRooms().stream().map(RoomSnapshot::getId).toList());
+    }
+}
@@ -0,0 +1,231 @@
+import com.example.Booking;
+import com.example.BookingStorage;
+import com.example.Room;
+import com.example.RoomSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 2, 8, 0, 0);
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("b1", "room1", BASE.plusHours(2), BASE.plusHours(3)));
+    }
+
+    @ParameterizedTest
+    @DisplayName("Availability should treat booking boundaries as inclusive")
+    @CsvSource({
+            "0, 60, true",
+            "0, 120, false",
+            "180, 240, false",
+            "181, 240, true",
+            "130, 150, false",
+            "60, 240, false"
+    })
+    void availabilityShouldTreatBoundariesAsInclusive(long startMinutes, long endMinutes, boolean expected) {
+        assertEquals(expected, room.isAvailable(BASE.plusMinutes(startMinutes), BASE.plusMinutes(endMinutes)));
+    }
+
+    @Test
+    @DisplayName("A booking without start or end time should be rejected with a clear error")
+    void bookingWithoutTimesShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Booking("b2", "room1", null, BASE));
+        assertThrows(IllegalArgumentException.class, () -> new Booking("b2", "room1", BASE, null));
+    }
+
+    @Test
+    @DisplayName("Removed booking should no longer block availability")
+    void removedBookingShouldNoLongerBlockAvailability() {
+        room.removeBooking("b1");
+
+        assertFalse(room.hasBooking("b1"));
+        assertTrue(room.isAvailable(BASE.plusHours(2), BASE.plusHours(3)));
+    }
+
+    @Test
+    @DisplayName("Availability should match Booking.overlaps for many random bookings")
+    void availabilityShouldMatchOverlapsForManyBookings() {
+        Random random = new Random(42);
+        List<Booking> bookings = new ArrayList<>();
+        Room largeRoom = new Room("room2", "Aula");
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            Booking booking = new Booking("b" + i, "room2", start, start.plusMinutes(random.nextInt(600)));
+            bookings.add(booking);
+            largeRoom.addBooking(booking);
+        }
+        for (int i = 0; i < 500; i++) {
+            Booking removed = bookings.remove(random.nextInt(bookings.size()));
+            largeRoom.removeBooking(removed.getId());
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            boolean expected = bookings.stream().noneMatch(booking -> booking.overlaps(start, end));
+            assertEquals(expected, largeRoom.isAvailable(start, end), "Mismatch for " + start + " - " + end);
+        }
+    }
+
+    @Test
+    @DisplayName("Compact storage should answer like the tree for random UUID and custom ids")
+    void compactStorageShouldMatchTree() {
+        Random random = new Random(7);
+        Room tree = new Room("room3", "Aula");
+        Room compact = new Room("room3", "Aula", BookingStorage.COMPACT);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000)).plusNanos(random.nextInt(1_000));
+            String id = i % 3 == 0 ? "custom-" + i : UUID.randomUUID().toString();
+            Booking booking = new Booking(id, "room3", start, start.plusMinutes(random.nextInt(600)));
+            ids.add(id);
+            tree.addBooking(booking);
+            compact.addBooking(booking);
+        }
+        for (int i = 0; i < 500; i++) {
+            String id = ids.remove(random.nextInt(ids.size()));
+            tree.removeBooking(id);
+            compact.removeBooking(id);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            assertEquals(tree.isAvailable(start, end), compact.isAvailable(start, end), "Mismatch for " + start + " - " + end);
+        }
+        List<Booking> expected = tree.getBookings();
+        List<Booking> actual = compact.getBookings();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getStartTime(), actual.get(i).getStartTime());
+            assertEquals(expected.get(i).getEndTime(), actual.get(i).getEndTime());
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshot storage should answer like the tree and leave published versions unchanged")
+    void snapshotStorageShouldMatchTree() {
+        Random random = new Random(11);
+        Room tree = new Room("room5", "Aula");
+        Room snapshots = new Room("room5", "Aula", BookingStorage.SNAPSHOT);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            Booking booking = new Booking("b" + i, "room5", start, start.plusMinutes(random.nextInt(600)));
+            ids.add(booking.getId());
+            tree.addBooking(booking);
+            snapshots.addBooking(booking);
+        }
+        RoomSnapshot before = snapshots.snapshot();
+        for (int i = 0; i < 500; i++) {
+            String id = ids.remove(random.nextInt(ids.size()));
+            tree.removeBooking(id);
+            snapshots.removeBooking(id);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            assertEquals(tree.isAvailable(start, end), snapshots.isAvailable(start, end), "Mismatch for " + start + " - " + end);
+            assertEquals(tree.getBookings(start, end), snapshots.getBookings(start, end));
+        }
+        assertEquals(tree.getBookings(), snapshots.getBookings());
+        assertEquals(tree.getBookings(), tree.snapshot().getBookings());
+        assertEquals(2_000, before.getBookings().size());
+        assertEquals(1_500, snapshots.snapshot().getBookings().size());
+
+        LocalDateTime cutoff = BASE.plusMonths(2);
+        assertEquals(tree.archiveBefore(cutoff), snapshots.archiveBefore(cutoff));
+        assertEquals(tree.getArchivedBookings(), snapshots.getArchivedBookings());
+        assertEquals(tree.getBookings(), snapshots.getBookings());
+    }
+
+    @Test
+    @DisplayName("Compact storage should materialize bookings on lookup")
+    void compactStorageShouldMaterializeBookings() {
+        Room compact = new Room("room4", "Aula", BookingStorage.COMPACT);
+        String uuid = UUID.randomUUID().toString();
+        compact.addBooking(new Booking(uuid, "room4", BASE, BASE.plusHours(1)));
+        compact.addBooking(new Booking("B1", "room4", BASE.plusHours(2), BASE.plusHours(3)));
+        compact.addBooking(new Booking(uuid.toUpperCase(), "room4", BASE.plusHours(4), BASE.plusHours(5)));
+
+        Booking booking = compact.getBooking(uuid);
+        assertEquals("room4", booking.getRoomId());
+        assertEquals(BASE, booking.getStartTime());
+        assertEquals(BASE.plusHours(5), compact.getBooking(uuid.toUpperCase()).getEndTime());
+        assertTrue(compact.hasBooking("B1"));
+
+        compact.addBooking(new Booking("B1", "room4", BASE.plusHours(6), BASE.plusHours(7)));
+        assertTrue(compact.isAvailable(BASE.plusHours(2), BASE.plusHours(3)));
+        assertEquals(3, compact.getBookings().size());
+
+        compact.removeBooking(uuid);
+        assertFalse(compact.hasBooking(uuid));
+        assertTrue(compact.isAvailable(BASE, BASE.plusHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> compact.addBooking(new Booking("far", "room4", BASE.plusYears(300), BASE.plusYears(300).plusHours(1))));
+    }
+
+    @Test
+    @DisplayName("Bookings outside the epoch-nanosecond range should keep inclusive overlap semantics")
+    void farFutureBookingsShouldKeepOverlapSemantics() {
+        LocalDateTime far = LocalDateTime.of(3000, 1, 1, 8, 0);
+        Booking booking = new Booking("b2", "room1", far, far.plusHours(1));
+        room.addBooking(booking);
+
+        assertTrue(booking.overlaps(far.plusHours(1), far.plusHours(2)));
+        assertFalse(booking.overlaps(far.plusHours(1).plusNanos(1), far.plusHours(2)));
+        assertFalse(room.isAvailable(far.minusHours(1), far));
+        assertTrue(room.isAvailable(far.plusHours(1).plusNanos(1), far.plusHours(2)));
+        assertTrue(room.isAvailable(far.minusYears(1), far.minusYears(1).plusHours(1)));
+        assertFalse(room.isAvailable(BASE, far));
+    }
+
+    @Test
+    @DisplayName("Bookings spanning month boundaries should still block availability")
+    void bookingsSpanningMonthsShouldBlock() {
+        LocalDateTime endOfMonth = LocalDateTime.of(2026, 3, 31, 22, 0);
+        room.addBooking(new Booking("long", "room1", endOfMonth, endOfMonth.plusDays(3)));
+
+        assertFalse(room.isAvailable(LocalDateTime.of(2026, 4, 2, 10, 0), LocalDateTime.of(2026, 4, 2, 11, 0)));
+        assertTrue(room.isAvailable(endOfMonth.plusDays(3).plusNanos(1), endOfMonth.plusDays(4)));
+        assertEquals(List.of("long"), room.getBookings(LocalDateTime.of(2026, 4, 1, 0, 0), LocalDateTime.of(2026, 4, 1, 1, 0))
+                .stream().map(Booking::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Archiving should move finished months out of the live bookings into history")
+    void archivingShouldMoveFinishedMonthsToHistory() {
+        LocalDateTime april = LocalDateTime.of(2026, 4, 10, 9, 0);
+        room.addBooking(new Booking("b2", "room1", BASE.plusDays(5), BASE.plusDays(5).plusHours(1)));
+        room.addBooking(new Booking("b3", "room1", april, april.plusHours(1)));
+
+        assertEquals(0, room.archiveBefore(BASE.plusDays(10)));
+        assertEquals(2, room.archiveBefore(april));
+
+        assertFalse(room.hasBooking("b1"));
+        assertFalse(room.hasBooking("b2"));
+        assertTrue(room.hasBooking("b3"));
+        assertTrue(room.isAvailable(BASE.plusHours(2), BASE.plusHours(3)));
+        assertEquals(1, room.getBookings().size());
+        assertEquals(List.of("b1", "b2"), room.getArchivedBookings().stream().map(Booking::getId).toList());
+        assertEquals(List.of("b2"), room.getBookingHistory(BASE.plusDays(5), BASE.plusDays(6))
+                .stream().map(Booking::getId).toList());
+    }
+}
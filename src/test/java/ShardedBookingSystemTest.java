@@ -0,0 +1,144 @@
+import com.example.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ShardedBookingSystemTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0, 0);
+    private static final LocalDateTime DAY = NOW.plusDays(1);
+    private static final int SHARDS = 4;
+
+    private final List<InMemoryRoomRepository> repositories = new ArrayList<>();
+    private final Map<String, Room> rooms = new TreeMap<>();
+    private ShardedBookingSystem bookingSystem;
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(NOW);
+        for (int i = 0; i < SHARDS; i++) {
+            repositories.add(new InMemoryRoomRepository());
+        }
+        notificationService = mock(NotificationService.class);
+        bookingSystem = new ShardedBookingSystem(timeProvider, repositories, notificationService);
+        for (int i = 0; i < 20; i++) {
+            Room room = new Room("room" + i, "Konferensrum");
+            rooms.put(room.getId(), room);
+            bookingSystem.addRoom(room);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingSystem.close();
+    }
+
+    @Test
+    @DisplayName("Rooms should be spread over the shards and availability gathered from all of them")
+    void availabilityShouldGatherAllShards() {
+        for (int i = 0; i < SHARDS; i++) {
+            assertFalse(repositories.get(i).findAll().isEmpty(), "Shard " + i + " got no rooms");
+        }
+        assertTrue(bookingSystem.bookRoom("room3", DAY.plusHours(9), DAY.plusHours(10)));
+        assertTrue(bookingSystem.bookRoom("room11", DAY.plusHours(9), DAY.plusHours(10)));
+        assertFalse(bookingSystem.bookRoom("room3", DAY.plusHours(9), DAY.plusHours(10)));
+
+        List<String> available = bookingSystem.getAvailableRooms(DAY.plusHours(9), DAY.plusHours(10)).stream()
+                .map(Room::getId).toList();
+        List<String> expected = new ArrayList<>(rooms.keySet());
+        expected.removeAll(List.of("room3", "room11"));
+        assertEquals(expected, available);
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.getAvailableRooms(DAY.plusHours(10), DAY.plusHours(9)));
+    }
+
+    @Test
+    @DisplayName("Cancellation should go straight to the shard encoded in the booking id")
+    void cancellationShouldRouteByBookingId() {
+        assertTrue(bookingSystem.bookRoom("room7", DAY.plusHours(9), DAY.plusHours(10)));
+        String bookingId = rooms.get("room7").getBookings().get(0).getId();
+        int owner = bookingSystem.shardOf("room7");
+        int[] lookupsBefore = new int[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            lookupsBefore[i] = repositories.get(i).findByIdCalls.get();
+        }
+
+        assertTrue(bookingSystem.cancelBooking(bookingId));
+
+        assertTrue(rooms.get("room7").getBookings().isEmpty());
+        for (int i = 0; i < SHARDS; i++) {
+            int lookups = repositories.get(i).findByIdCalls.get() - lookupsBefore[i];
+            if (i == owner) {
+                assertTrue(lookups > 0);
+            } else {
+                assertEquals(0, lookups, "Shard " + i + " was asked about a booking it does not own");
+            }
+        }
+        assertFalse(bookingSystem.cancelBooking(bookingId));
+    }
+
+    @Test
+    @DisplayName("Multi-room bookings should be limited to rooms in the same shard")
+    void multiRoomBookingsShouldStayInOneShard() {
+        String first = "room0";
+        String sameShard = null;
+        String otherShard = null;
+        for (String roomId : rooms.keySet()) {
+            if (roomId.equals(first)) {
+                continue;
+            }
+            if (bookingSystem.shardOf(roomId) == bookingSystem.shardOf(first)) {
+                sameShard = sameShard == null ? roomId : sameShard;
+            } else {
+                otherShard = otherShard == null ? roomId : otherShard;
+            }
+        }
+        assertNotNull(sameShard);
+        assertNotNull(otherShard);
+
+        assertTrue(bookingSystem.bookRooms(List.of(new BookingRequest(first, DAY.plusHours(9), DAY.plusHours(10)),
+                new BookingRequest(sameShard, DAY.plusHours(9), DAY.plusHours(10)))));
+        String crossShard = otherShard;
+        assertThrows(IllegalArgumentException.class, () -> bookingSystem.bookRooms(List.of(
+                new BookingRequest(first, DAY.plusHours(11), DAY.plusHours(12)),
+                new BookingRequest(crossShard, DAY.plusHours(11), DAY.plusHours(12)))));
+        assertTrue(rooms.get(first).isAvailable(DAY.plusHours(11), DAY.plusHours(12)));
+    }
+
+    @Test
+    @DisplayName("Multi-room bookings should follow the single-node contract for empty lists and notification order")
+    void multiRoomBookingsShouldMatchSingleNodeContract() throws NotificationException {
+        assertTrue(bookingSystem.bookRooms(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> bookingSystem.bookRooms(null));
+        verify(notificationService, never()).sendBookingConfirmation(any());
+
+        String first = "room0";
+        String later = rooms.keySet().stream()
+                .filter(roomId -> roomId.compareTo(first) > 0 && bookingSystem.shardOf(roomId) == bookingSystem.shardOf(first))
+                .findFirst().orElseThrow();
+        assertTrue(bookingSystem.bookRooms(List.of(new BookingRequest(later, DAY.plusHours(9), DAY.plusHours(10)),
+                new BookingRequest(first, DAY.plusHours(9), DAY.plusHours(10)))));
+
+        InOrder order = inOrder(notificationService);
+        order.verify(notificationService).sendBookingConfirmation(rooms.get(first).getBookings().get(0));
+        order.verify(notificationService).sendBookingConfirmation(rooms.get(later).getBookings().get(0));
+    }
+}
@@ -1,8 +1,15 @@
+import com.example.shopping.CartOperation;
+import com.example.shopping.CartRule;
+import com.example.shopping.CartRules;
+import com.example.shopping.MaxQuantityRule;
 import com.example.shopping.ShoppingCart;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ShoppingCartTest {
@@ -101,6 +108,103 @@ public class ShoppingCartTest {
         assertTrue(actualMessage.contains(exceptionMessage));
     }
 
+    @Test
+    @DisplayName("Cream of boar limit should apply to the quantity already in the cart")
+    void creamOfBoarLimitShouldApplyToMergedQuantity() {
+        cart.addItem("cream of boar", 20.90, 4, 0);
+        assertThrows(IllegalArgumentException.class, () -> cart.addItem("cream of boar", 20.90, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> cart.updateQuantity("cream of boar", 7));
+        cart.addItem("cream of boar", 20.90, 2, 0);
+        assertEquals(6, cart.getQuantity("cream of boar"), "Quantity should stop at the limit");
+        assertEquals(125.40, cart.getTotalPrice(), "Rejected adds should not change the total");
+    }
+
+    @Test
+    @DisplayName("Loaded rules should only be checked for their own product")
+    void loadedRulesShouldOnlyApplyToTheirProduct() {
+        List<CartRule> rules = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rules.add(new MaxQuantityRule("cream of product " + i, i, "Too many of product " + i));
+        }
+        rules.add(new MaxQuantityRule("cream of product 10", 20, "Never reached"));
+        ShoppingCart ruledCart = new ShoppingCart(CartRules.of(rules));
+
+        ruledCart.addItem("cream of boar", 20.90, 12, 0);
+        ruledCart.addItem("cream of product 10", 5.00, 10, 0);
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> ruledCart.addItem("cream of product 10", 5.00, 1, 0));
+        assertEquals("Too many of product 10", exception.getMessage());
+        assertEquals(12, ruledCart.getQuantity("cream of boar"), "Default rules should not apply to a custom rule set");
+    }
+
+    @Test
+    @DisplayName("A batch should leave the cart as if the operations were applied one by one")
+    void batchShouldMatchSequentialOperations() {
+        ShoppingCart sequential = new ShoppingCart();
+        for (ShoppingCart target : List.of(cart, sequential)) {
+            target.addItem("cream of mushrooms", 25.50, 2, 0);
+            target.addItem("cream of beans", 18.50, 1, 50);
+        }
+        List<CartOperation> operations = List.of(
+                CartOperation.add("cream of boar", 20.90, 3, 0),
+                CartOperation.add("cream of mushrooms", 25.50, 5, 0),
+                CartOperation.remove("cream of beans"),
+                CartOperation.add("cream of beans", 18.50, 4, 10),
+                CartOperation.update("cream of boar", 6),
+                CartOperation.add("cream of salad", 30.50, 1, 30),
+                CartOperation.update("cream of salad", 0));
+
+        cart.applyBatch(operations);
+        sequential.addItem("cream of boar", 20.90, 3, 0);
+        sequential.addItem("cream of mushrooms", 25.50, 5, 0);
+        sequential.removeItem("cream of beans");
+        sequential.addItem("cream of beans", 18.50, 4, 10);
+        sequential.updateQuantity("cream of boar", 6);
+        sequential.addItem("cream of salad", 30.50, 1, 30);
+        sequential.updateQuantity("cream of salad", 0);
+
+        assertEquals(sequential.itemCount(), cart.itemCount());
+        assertEquals(sequential.getTotal(), cart.getTotal());
+        for (String product : List.of("cream of boar", "cream of mushrooms", "cream of beans", "cream of salad")) {
+            assertEquals(sequential.getQuantity(product), cart.getQuantity(product), product);
+        }
+    }
+
+    @Test
+    @DisplayName("A batch with a rule violation should not change the cart")
+    void batchWithViolationShouldNotChangeTheCart() {
+        cart.addItem("cream of boar", 20.90, 4, 0);
+        cart.addItem("cream of mushrooms", 25.50, 1, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> cart.applyBatch(List.of(
+                CartOperation.add("cream of salad", 30.50, 1, 0),
+                CartOperation.remove("cream of mushrooms"),
+                CartOperation.add("cream of boar", 20.90, 3, 0))));
+        assertThrows(IllegalArgumentException.class, () -> cart.applyBatch(List.of(
+                CartOperation.update("cream of mushrooms", 3),
+                CartOperation.update("cream of deer", 1))));
+
+        assertEquals(2, cart.itemCount());
+        assertEquals(4, cart.getQuantity("cream of boar"));
+        assertEquals(1, cart.getQuantity("cream of mushrooms"));
+        assertEquals(109.10, cart.getTotalPrice());
+    }
+
+    @Test
+    @DisplayName("Total price should follow adds, updates and removals without drifting")
+    void totalPriceShouldFollowChangesWithoutDrifting() {
+        cart.addItem("cream of salad", 30.50, 1, 30);
+        cart.addItem("cream of beans", 18.50, 2, 50);
+        cart.addItem("cream of beans", 18.50, 3, 50);
+        cart.updateQuantity("cream of salad", 4);
+        assertEquals(131.65, cart.getTotalPrice(), "Total should be 4 x 21.35 + 5 x 9.25");
+
+        cart.updateQuantity("cream of salad", 0);
+        assertEquals(46.25, cart.getTotalPrice(), "Removed line should no longer count");
+        cart.removeItem("cream of beans");
+        assertEquals(0.0, cart.getTotalPrice(), "Empty cart should cost nothing");
+    }
+
 
 
 